@@ -0,0 +1,296 @@
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The `DenseQAgent` class represents an agent that learns to navigate a maze with a `QNetwork` instead of a Q-table.
+ * Each state is described by the walls in a square window around the agent, its normalized (x, y) coordinates, the same coordinates coarse-coded into overlapping bins, and its normalized offset to the goal, so the memory used does not grow with the maze.
+ * Because the network only sees local features and normalized coordinates, its weights can also be reused on mazes it was not trained on.
+ *
+ * Training follows deep Q-learning: every transition is appended to a `ReplayBuffer`, and after every step the network is trained on a mini-batch sampled uniformly from it.
+ * The targets are computed with a target network, a copy of the network refreshed every `TARGET_UPDATE_INTERVAL` steps, so the network does not chase its own updates.
+ */
+public class DenseQAgent implements Runnable {
+    private static final double DISCOUNT_FACTOR = 0.97; // The discount factor used in the Q-learning algorithm
+    private static final double INITIAL_EPSILON = 1.0; // The initial exploration rate
+    private static final double MIN_EPSILON = 0.05; // The minimum exploration rate
+    private static final double EPSILON_DECAY = 0.97; // The factor epsilon is multiplied by every episode
+    private static final int MAX_STEPS = 1000; // The maximum number of steps per episode
+    private static final int NUM_EPISODES = 200; // The number of episodes in the training phase
+    private static final int WINDOW_RADIUS = 2; // The radius of the wall window around the agent
+    private static final int COORDINATE_BINS = 10; // The number of overlapping bins each normalized coordinate is coarse-coded into
+    private static final int HIDDEN_SIZE = 128; // The number of hidden units of the network
+    private static final int BATCH_SIZE = 32; // The number of transitions per gradient step
+    private static final float NETWORK_LEARNING_RATE = 0.05f; // The step size of the network's gradient descent
+    private static final int REPLAY_CAPACITY = 20000; // The number of transitions kept for replay
+    private static final int TARGET_UPDATE_INTERVAL = 100; // The number of steps between refreshes of the target network
+    private static final double REWARD_SCALE = 0.1; // The factor rewards are scaled by, to keep the network's targets small
+
+    private final Map map; // The map of the maze
+    private final Position[][] maze; // The maze representation
+    private final int width; // The width of the maze
+    private final Position goalPosition; // The position of the goal in the maze
+    private final int goalState; // The state index of the goal
+    private final int position; // The index of the agent
+    private final QNetwork network; // The Q-value approximator
+    private final QNetwork targetNetwork; // The copy of the network the targets are computed with
+    private final ReplayBuffer replayBuffer; // The transitions the network is trained on
+    private final Random random; // A random number generator
+    private final Schedule epsilonSchedule = new ExponentialDecaySchedule(INITIAL_EPSILON, MIN_EPSILON, EPSILON_DECAY); // The exploration rate per episode
+    private final int featureSize; // The number of features per state
+    private final float[] stateFeatures; // The features of every state of the maze, computed once
+    private final float[] qValues; // The Q-values of a single state
+    private final int[] sampledStates; // The state index of each sampled transition
+    private final int[] sampledActions; // The action index of each sampled transition
+    private final float[] sampledRewards; // The reward of each sampled transition
+    private final int[] sampledNextStates; // The next state index of each sampled transition
+    private final float[] batchStates; // The features of the batched states
+    private final float[] batchTargets; // The target Q-values of the batch
+    private int currentEpisode = 0; // The current episode of the training phase
+    private long totalSteps = 0; // The number of steps taken over all episodes
+
+    /**
+     * Constructs a new instance of the `DenseQAgent` class with a new network.
+     *
+     * @param map      The map of the maze.
+     * @param position The index of the agent.
+     * @param seed     The seed of the network initialization and of the exploration.
+     */
+    public DenseQAgent(Map map, int position, long seed) {
+        this(map, position, new QNetwork(featureSize(), HIDDEN_SIZE, BATCH_SIZE,
+                Math.min(4, Runtime.getRuntime().availableProcessors()), NETWORK_LEARNING_RATE, seed), seed);
+    }
+
+    /**
+     * Constructs a new instance of the `DenseQAgent` class with an existing network, for example one trained on another maze.
+     *
+     * @param map      The map of the maze.
+     * @param position The index of the agent.
+     * @param network  The Q-value approximator; its input size must be `featureSize()`.
+     * @param seed     The seed of the exploration.
+     */
+    public DenseQAgent(Map map, int position, QNetwork network, long seed) {
+        if (network.getInputSize() != featureSize()) {
+            throw new IllegalArgumentException("Network input size must be " + featureSize());
+        }
+        this.map = map;
+        this.maze = map.getConvertedMaze();
+        this.width = maze[0].length;
+        this.goalPosition = map.getGoalPosition();
+        this.goalState = stateOf(goalPosition);
+        this.position = position;
+        this.network = network;
+        this.targetNetwork = new QNetwork(network.getInputSize(), network.getHiddenSize(), 1, 1, 0.0f, seed);
+        this.targetNetwork.copyWeightsFrom(network);
+        this.replayBuffer = new ReplayBuffer(REPLAY_CAPACITY);
+        this.random = new Random(seed);
+        this.featureSize = featureSize();
+        this.stateFeatures = new float[maze.length * width * featureSize];
+        for (Position[] row : maze) {
+            for (Position cell : row) {
+                extractFeatures(maze, goalPosition, cell, stateFeatures, stateOf(cell) * featureSize);
+            }
+        }
+        this.qValues = new float[QNetwork.OUTPUT_SIZE];
+        this.sampledStates = new int[BATCH_SIZE];
+        this.sampledActions = new int[BATCH_SIZE];
+        this.sampledRewards = new float[BATCH_SIZE];
+        this.sampledNextStates = new int[BATCH_SIZE];
+        this.batchStates = new float[BATCH_SIZE * featureSize];
+        this.batchTargets = new float[BATCH_SIZE];
+    }
+
+    /**
+     * Returns the number of features describing a state: one wall flag per cell of the window, the normalized x and y coordinates, `COORDINATE_BINS` bins per coordinate, and the normalized x and y offsets to the goal.
+     *
+     * @return The number of features.
+     */
+    public static int featureSize() {
+        int side = 2 * WINDOW_RADIUS + 1;
+        return side * side + 2 * COORDINATE_BINS + 4;
+    }
+
+    /**
+     * Writes the features of the given position into a buffer.
+     * Cells of the window outside the maze count as walls.
+     * Each normalized coordinate also activates the two nearest of `COORDINATE_BINS` evenly spaced bins, in proportion to its distance to them, so the network can tell nearby cells apart without learning sharp kinks in the raw coordinates.
+     *
+     * @param maze     The maze representation.
+     * @param goal     The position of the goal.
+     * @param position The position to be described.
+     * @param out      The buffer receiving the features.
+     * @param offset   The index of the first feature in the buffer.
+     */
+    static void extractFeatures(Position[][] maze, Position goal, Position position, float[] out, int offset) {
+        int x = position.getXCord();
+        int y = position.getYCord();
+        int i = offset;
+        for (int dx = -WINDOW_RADIUS; dx <= WINDOW_RADIUS; dx++) {
+            for (int dy = -WINDOW_RADIUS; dy <= WINDOW_RADIUS; dy++) {
+                int cx = x + dx;
+                int cy = y + dy;
+                boolean wall = cx < 0 || cx >= maze.length || cy < 0 || cy >= maze[0].length || maze[cx][cy].isWall();
+                out[i++] = wall ? 1.0f : 0.0f;
+            }
+        }
+        float xScale = maze.length > 1 ? 1.0f / (maze.length - 1) : 0.0f;
+        float yScale = maze[0].length > 1 ? 1.0f / (maze[0].length - 1) : 0.0f;
+        out[i++] = x * xScale;
+        out[i++] = y * yScale;
+        for (int bin = 0; bin < COORDINATE_BINS; bin++) {
+            out[i++] = Math.max(0.0f, 1.0f - Math.abs(x * xScale * (COORDINATE_BINS - 1) - bin));
+            out[i++] = Math.max(0.0f, 1.0f - Math.abs(y * yScale * (COORDINATE_BINS - 1) - bin));
+        }
+        out[i++] = (goal.getXCord() - x) * xScale;
+        out[i] = (goal.getYCord() - y) * yScale;
+    }
+
+    /**
+     * Returns the network of this agent.
+     *
+     * @return The Q-value approximator.
+     */
+    public QNetwork getNetwork() {
+        return network;
+    }
+
+    @Override
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        while (currentEpisode < NUM_EPISODES) {
+            trainEpisode();
+        }
+        long endTime = System.currentTimeMillis();
+        System.out.println("Total execution time: " + (endTime - startTime) + " milliseconds");
+    }
+
+    /**
+     * Runs a single training episode.
+     * Every step appends its transition to the replay buffer and then trains the network on one mini-batch sampled from it.
+     */
+    private void trainEpisode() {
+        double epsilon = epsilonSchedule.valueAt(currentEpisode);
+        currentEpisode++;
+        Position agentPosition = map.getAgentPosition(position);
+        int stepsTaken = 0;
+        while (!agentPosition.equals(goalPosition) && stepsTaken < MAX_STEPS) {
+            int state = stateOf(agentPosition);
+            int action = random.nextDouble() < epsilon ? random.nextInt(QNetwork.OUTPUT_SIZE) : greedyAction(state);
+            Position nextPosition = LearningAgent.possibleMoveAgent(maze, agentPosition, action);
+            replayBuffer.append(state, action, (float) (LearningAgent.getReward(nextPosition) * REWARD_SCALE), stateOf(nextPosition));
+            learnBatch();
+            if (++totalSteps % TARGET_UPDATE_INTERVAL == 0) {
+                targetNetwork.copyWeightsFrom(network);
+            }
+            agentPosition = nextPosition;
+            stepsTaken++;
+        }
+        System.out.println("Episode: " + currentEpisode + ", Steps taken: " + stepsTaken);
+    }
+
+    /**
+     * Trains the network on one mini-batch sampled uniformly from the replay buffer.
+     * The target of a transition reaching the goal is its reward; every other target bootstraps from the target network at the next state.
+     */
+    private void learnBatch() {
+        int filled = (int) Math.min(replayBuffer.getAppendCount(), REPLAY_CAPACITY);
+        if (filled < BATCH_SIZE) {
+            return; // Wait until a whole batch can be sampled
+        }
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            replayBuffer.copyTo(random.nextInt(filled), i, sampledStates, sampledActions, sampledRewards, sampledNextStates);
+            System.arraycopy(stateFeatures, sampledStates[i] * featureSize, batchStates, i * featureSize, featureSize);
+            float target = sampledRewards[i];
+            if (sampledNextStates[i] != goalState) {
+                targetNetwork.predict(stateFeatures, sampledNextStates[i] * featureSize, qValues);
+                target += (float) DISCOUNT_FACTOR * max(qValues);
+            }
+            batchTargets[i] = target;
+        }
+        network.trainBatch(batchStates, sampledActions, batchTargets, BATCH_SIZE);
+    }
+
+    /**
+     * Selects the action with the highest predicted Q-value for the given state.
+     *
+     * @param state The state index.
+     * @return The index of the best-known action.
+     */
+    private int greedyAction(int state) {
+        network.predict(stateFeatures, state * featureSize, qValues);
+        int bestAction = 0;
+        for (int action = 1; action < QNetwork.OUTPUT_SIZE; action++) {
+            if (qValues[action] > qValues[bestAction]) {
+                bestAction = action;
+            }
+        }
+        return bestAction;
+    }
+
+    /**
+     * Returns the largest of the given Q-values.
+     *
+     * @param values The Q-values.
+     * @return The maximum Q-value.
+     */
+    private static float max(float[] values) {
+        float max = values[0];
+        for (int i = 1; i < values.length; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Returns the state index of the given position.
+     *
+     * @param position The position.
+     * @return The state index, `yCord * width + xCord`.
+     */
+    private int stateOf(Position position) {
+        return position.getYCord() * width + position.getXCord();
+    }
+
+    /**
+     * Returns the greedy route from the agent's start position to the goal according to the network.
+     * The route stops after `MAX_STEPS` moves if the goal is not reached.
+     *
+     * @return The positions visited after the start position, in order.
+     */
+    public List<Position> queryRoute() {
+        List<Position> route = new ArrayList<>();
+        Position current = map.getAgentPosition(position);
+        while (!current.equals(goalPosition) && route.size() < MAX_STEPS) {
+            current = LearningAgent.possibleMoveAgent(maze, current, greedyAction(stateOf(current)));
+            route.add(current);
+        }
+        return route;
+    }
+
+    /**
+     * Runs a single testing episode.
+     * The agent follows the greedy route of its network, and the GUI is updated after every move.
+     *
+     * @param gui The GUI instance.
+     */
+    public void testEpisode(ML_GUI gui) {
+        Position agentPosition = map.getAgentPosition(position);
+        int stepsTaken = 0;
+        for (Position nextPosition : queryRoute()) {
+            System.out.println("Next position: (" + nextPosition.getXCord() + ", " + nextPosition.getYCord() + ")");
+            maze[agentPosition.getXCord()][agentPosition.getYCord()].setAgent(false);
+            maze[nextPosition.getXCord()][nextPosition.getYCord()].setAgent(true);
+            stepsTaken++;
+            int steps = stepsTaken;
+            SwingUtilities.invokeLater(() -> gui.renderMaze(maze, steps, DISCOUNT_FACTOR, NETWORK_LEARNING_RATE, NUM_EPISODES));
+            try {
+                Thread.sleep(100); // Wait before the next action
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            agentPosition = nextPosition;
+        }
+        System.out.println("Testing phase completed in " + stepsTaken + " steps");
+    }
+}
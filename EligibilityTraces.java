@@ -0,0 +1,110 @@
+/**
+ * The `EligibilityTraces` class stores the eligibility traces of the recently visited state-action pairs for Q(lambda) learning.
+ * Instead of a trace for every entry of the Q-table, it keeps a bounded ring buffer of the most recent pairs, and traces that decay below a threshold are pruned.
+ * Every operation therefore costs O(trace length) rather than O(states), and nothing is allocated after construction.
+ * The class is not thread-safe; each agent owns its own traces.
+ */
+public class EligibilityTraces {
+    private final int[] states; // The state index of each trace
+    private final byte[] actions; // The action index of each trace
+    private final double[] traces; // The eligibility of each trace
+    private final double threshold; // The eligibility below which a trace is pruned
+    private int head = 0; // The slot of the oldest trace in the ring buffer
+    private int size = 0; // The number of traces in the ring buffer
+
+    /**
+     * Constructs a new instance of the `EligibilityTraces` class.
+     *
+     * @param capacity  The maximum number of traces kept; the oldest trace is dropped when a new pair is visited and the buffer is full.
+     * @param threshold The eligibility below which a trace is pruned.
+     */
+    public EligibilityTraces(int capacity, double threshold) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.states = new int[capacity];
+        this.actions = new byte[capacity];
+        this.traces = new double[capacity];
+        this.threshold = threshold;
+    }
+
+    /**
+     * Records a visit to the given state-action pair by setting its eligibility to 1 (replacing traces).
+     *
+     * @param state  The state index.
+     * @param action The action index.
+     */
+    public void visit(int state, int action) {
+        int capacity = states.length;
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % capacity;
+            if (states[slot] == state && actions[slot] == action) {
+                traces[slot] = 1.0;
+                return;
+            }
+        }
+        if (size == capacity) {
+            head = (head + 1) % capacity; // Drop the oldest trace
+            size--;
+        }
+        int slot = (head + size) % capacity;
+        states[slot] = state;
+        actions[slot] = (byte) action;
+        traces[slot] = 1.0;
+        size++;
+    }
+
+    /**
+     * Adds `step` times the eligibility of each trace to the Q-value of its state-action pair.
+     *
+     * @param qTable The Q-table to be updated.
+     * @param step   The learning rate multiplied by the temporal-difference error.
+     */
+    public void apply(double[][] qTable, double step) {
+        int capacity = states.length;
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % capacity;
+            qTable[states[slot]][actions[slot]] += step * traces[slot];
+        }
+    }
+
+    /**
+     * Multiplies every eligibility by the given factor and prunes the traces that fall below the threshold.
+     * The order of the remaining traces is kept.
+     *
+     * @param factor The decay factor, usually the discount factor times lambda.
+     */
+    public void decay(double factor) {
+        int capacity = states.length;
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % capacity;
+            double trace = traces[slot] * factor;
+            if (trace >= threshold) {
+                int target = (head + kept) % capacity;
+                states[target] = states[slot];
+                actions[target] = actions[slot];
+                traces[target] = trace;
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Removes every trace, for example at the start of an episode or after an exploratory action.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns the number of traces currently kept.
+     *
+     * @return The number of traces.
+     */
+    public int size() {
+        return size;
+    }
+}
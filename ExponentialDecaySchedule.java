@@ -0,0 +1,30 @@
+/**
+ * The `ExponentialDecaySchedule` class is a `Schedule` that multiplies its value by a constant decay rate every episode.
+ * The value never goes below the given minimum.
+ */
+public class ExponentialDecaySchedule implements Schedule {
+    private final double startValue; // The value at the first episode
+    private final double minValue; // The minimum value
+    private final double decayRate; // The factor the value is multiplied by every episode
+
+    /**
+     * Constructs a new instance of the `ExponentialDecaySchedule` class.
+     *
+     * @param startValue The value at the first episode.
+     * @param minValue   The minimum value.
+     * @param decayRate  The factor the value is multiplied by every episode, between 0 and 1.
+     */
+    public ExponentialDecaySchedule(double startValue, double minValue, double decayRate) {
+        if (decayRate <= 0.0 || decayRate > 1.0) {
+            throw new IllegalArgumentException("Decay rate must be in (0, 1]");
+        }
+        this.startValue = startValue;
+        this.minValue = minValue;
+        this.decayRate = decayRate;
+    }
+
+    @Override
+    public double valueAt(int episode) {
+        return Math.max(minValue, startValue * Math.pow(decayRate, episode));
+    }
+}
@@ -1,5 +1,10 @@
 import javax.swing.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The `LearningAgent` class represents an agent that learns to navigate a maze using Q-learning.
@@ -14,18 +19,39 @@ public class LearningAgent implements Runnable {
     private static final double MIN_EPSILON = 0.01; // The minimum exploration rate
     private static final int MAX_STEPS = 1000; // The maximum number of training steps
     private static final double LEARNING_RATE = 0.3; // The learning rate used in the Q-learning algorithm
+    private static final double EPSILON_DECAY = 0.8; // The factor epsilon is multiplied by every episode by default
+    private static final int TRACE_CAPACITY = 64; // The maximum number of eligibility traces kept per agent
+    private static final double TRACE_THRESHOLD = 0.01; // The eligibility below which a trace is pruned
+    private static final boolean VERBOSE = false; // Whether every training step is printed; off by default to keep the training loop allocation-free
     private static final int NUM_EPISODES = 120; // The number of episodes in the training phase
+    private static final double SWEEP_THRESHOLD = 1e-3; // The Q-value change below which a re-training sweep stops spreading
+    private static final int MAX_SWEEPS_PER_STATE = 50; // The re-training budget, in backups per state of the maze
 
     private final Position[][] maze; // The maze representation
     private final int length; // The length of the maze
     private final int width; // The width of the maze
-    private static double[][] qTable; // The Q-table, which stores the Q-values for each state-action pair
-    private static final Object qTableLock = new Object(); // A lock object to ensure thread-safe access to the Q-table
+    private static double[][] sharedQTable; // The Q-table shared by all agents, which stores the Q-values for each state-action pair
+    private static Map qTableMap; // The map the shared Q-table was initialized for
+    private static VisitCounter sharedVisitCounter; // The visit counts for each state-action pair of the shared Q-table
+    private static final Object qTableLock = new Object(); // A lock object to ensure thread-safe access to the shared Q-table
+    private static final AtomicLong qTableVersion = new AtomicLong(); // The version of the shared Q-table, incremented on every update
+    private static final int ROUTE_CACHE_CAPACITY = 64; // The maximum number of routes kept in the route cache
+    private static final RouteCache routeCache = new RouteCache(ROUTE_CACHE_CAPACITY); // The cache of routes computed from the Q-table
+    private final double[][] qTable; // The Q-table this agent learns, the shared one unless the agent trains on a private copy
+    private final VisitCounter visitCounter; // The visit counts of this agent's Q-table, guarded by the table lock
+    private final Object tableLock; // The lock guarding this agent's Q-table
     private final Position goalPosition; // The position of the goal in the maze
     private Position agentPosition; // The current position of the agent
     private final Random random; // A random number generator
     private final ML_GUI gui; // The GUI instance
     private final int position; // The index of the agent
+    private Schedule epsilonSchedule = new ExponentialDecaySchedule(INITIAL_EPSILON, MIN_EPSILON, EPSILON_DECAY); // The exploration rate per episode
+    private double explorationBonus = 0.0; // The weight of the count-based (UCB) exploration bonus, 0 to disable it
+    private boolean countBasedLearningRate = false; // Whether the learning rate is max(`LEARNING_RATE`, 1/N(s,a)) instead of `LEARNING_RATE`
+    private double epsilon; // The exploration rate of the current episode
+    private double traceDecay = 0.0; // The trace decay (lambda) of Watkins Q(lambda), 0 for one-step Q-learning
+    private EligibilityTraces traces; // The eligibility traces of the agent, or `null` for one-step Q-learning
+    private ReplayBuffer replayBuffer; // The buffer the agent's transitions are appended to, or `null` without experience replay
 
     /**
      * Constructs a new instance of the `LearningAgent` class.
@@ -35,6 +61,35 @@ public class LearningAgent implements Runnable {
      * @param position The index of the agent.
      */
     public LearningAgent(Map map, ML_GUI gui, int position) {
+        this(map, gui, position, new Random(), null, null);
+    }
+
+    /**
+     * Constructs a new instance of the `LearningAgent` class that trains on a private Q-table instead of the shared one.
+     * Such an agent needs no GUI and takes its random numbers from the given seed, so its training is reproducible.
+     * Its routes must not be queried through `queryRoute`, because the route cache only tracks the shared Q-table.
+     *
+     * @param map          The map of the maze.
+     * @param position     The index of the agent.
+     * @param qTable       The private Q-table, with one row per state and one column per action.
+     * @param visitCounter The visit counts of the private Q-table.
+     * @param seed         The seed of the agent's random number generator.
+     */
+    LearningAgent(Map map, int position, double[][] qTable, VisitCounter visitCounter, long seed) {
+        this(map, null, position, new Random(seed), qTable, visitCounter);
+    }
+
+    /**
+     * Constructs a new instance of the `LearningAgent` class.
+     *
+     * @param map          The map of the maze.
+     * @param gui          The GUI instance, or `null` if the agent is only trained.
+     * @param position     The index of the agent.
+     * @param random       The random number generator of the agent.
+     * @param qTable       The private Q-table, or `null` to use the shared Q-table.
+     * @param visitCounter The visit counts of the private Q-table, or `null` to use the shared counts.
+     */
+    private LearningAgent(Map map, ML_GUI gui, int position, Random random, double[][] qTable, VisitCounter visitCounter) {
         this.position = position;
         this.maze = map.getConvertedMaze();
         this.map = map;
@@ -42,23 +97,121 @@ public class LearningAgent implements Runnable {
         this.length = maze.length;
         this.width = maze[0].length;
         this.goalPosition = map.getGoalPosition();
-        this.random = new Random();
+        this.random = random;
         this.gui = gui;
-        if (qTable == null) {
-            initializeQTable();
+        if (qTable != null) {
+            this.qTable = qTable;
+            this.visitCounter = visitCounter;
+            this.tableLock = new Object();
+            return;
+        }
+        synchronized (qTableLock) {
+            if (sharedQTable == null || qTableMap != map) {
+                initializeQTable(); // Values learned on another maze must not carry over
+                qTableMap = map;
+            }
+            this.qTable = sharedQTable;
+            this.visitCounter = sharedVisitCounter;
         }
+        this.tableLock = qTableLock;
     }
 
     /**
-     * Initializes the Q-table with random values.
+     * Initializes the shared Q-table with random values.
      */
     private void initializeQTable() {
-        qTable = new double[length * width][4];
+        sharedQTable = new double[length * width][4];
         for (int i = 0; i < length * width; i++) {
             for (int j = 0; j < 4; j++) {
-                qTable[i][j] = random.nextDouble(); // Initialize Q-values randomly
+                sharedQTable[i][j] = random.nextDouble(); // Initialize Q-values randomly
             }
         }
+        sharedVisitCounter = new VisitCounter(length * width);
+        qTableVersion.incrementAndGet();
+    }
+
+    /**
+     * Replaces the shared Q-table with a table trained elsewhere, for example by the `ParallelTrainer`.
+     * Agents created afterwards for the same map use the new table; the visit counts start from zero.
+     *
+     * @param map    The map the Q-table was trained on.
+     * @param qTable The trained Q-table.
+     */
+    static void loadSharedQTable(Map map, double[][] qTable) {
+        synchronized (qTableLock) {
+            sharedQTable = qTable;
+            sharedVisitCounter = new VisitCounter(qTable.length);
+            qTableMap = map;
+            qTableVersion.incrementAndGet();
+        }
+        routeCache.invalidate();
+    }
+
+    /**
+     * Runs the given number of training episodes.
+     *
+     * @param episodes The number of episodes to be run.
+     */
+    void train(int episodes) {
+        for (int i = 0; i < episodes; i++) {
+            trainEpisode();
+        }
+    }
+
+    /**
+     * Sets the schedule of the exploration rate (epsilon) over the training episodes.
+     *
+     * @param epsilonSchedule The exploration rate schedule.
+     */
+    public void setEpsilonSchedule(Schedule epsilonSchedule) {
+        this.epsilonSchedule = epsilonSchedule;
+    }
+
+    /**
+     * Sets the weight of the count-based (UCB) exploration bonus added to the Q-values when exploiting.
+     * The bonus for an action is `explorationBonus * sqrt(ln(N(s) + 1) / (N(s,a) + 1))`, so rarely tried actions are preferred.
+     *
+     * @param explorationBonus The weight of the bonus, or 0 to disable it.
+     */
+    public void setExplorationBonus(double explorationBonus) {
+        this.explorationBonus = explorationBonus;
+    }
+
+    /**
+     * Sets whether the learning rate of each update is max(`LEARNING_RATE`, 1/N(s,a)), where N(s,a) is the number of visits to the updated state-action pair.
+     * The first visits to a pair thus average out its random initial value quickly, and later visits keep the constant rate.
+     * Rates that keep decaying with N, such as 1/N or 1/N^0.6, stop learning before the bootstrapped targets settle, because early random exploration visits many pairs hundreds of times.
+     * When disabled, the constant `LEARNING_RATE` is used.
+     *
+     * @param countBasedLearningRate `true` to use count-based learning rates, `false` to use `LEARNING_RATE`.
+     */
+    public void setCountBasedLearningRate(boolean countBasedLearningRate) {
+        this.countBasedLearningRate = countBasedLearningRate;
+    }
+
+    /**
+     * Sets the trace decay (lambda) of Watkins Q(lambda).
+     * With a positive lambda, every update also moves the recently visited state-action pairs towards the new target, so rewards travel back along a whole corridor in one visit.
+     * Traces are cut whenever the agent takes an action other than the greedy one.
+     * With the UCB exploration bonus enabled, the optimistic action often differs from the greedy one, so the bonus shortens the traces.
+     *
+     * @param traceDecay The trace decay between 0 and 1, or 0 for one-step Q-learning.
+     */
+    public void setTraceDecay(double traceDecay) {
+        if (traceDecay < 0.0 || traceDecay > 1.0) {
+            throw new IllegalArgumentException("Trace decay must be in [0, 1]");
+        }
+        this.traceDecay = traceDecay;
+        this.traces = traceDecay > 0.0 ? new EligibilityTraces(TRACE_CAPACITY, TRACE_THRESHOLD) : null;
+    }
+
+    /**
+     * Sets the buffer the agent appends each of its transitions to, so that a `ReplayLearner` can replay them.
+     *
+     * @param replayBuffer The replay buffer, or `null` to disable experience replay.
+     */
+    public void setReplayBuffer(ReplayBuffer replayBuffer) {
+        this.replayBuffer = replayBuffer;
     }
 
     @Override
@@ -68,6 +221,7 @@ public class LearningAgent implements Runnable {
                 trainEpisode(); // Run the training episode
 
         }
+        routeCache.invalidate(); // Routes computed during training are stale now
         long endTime = System.currentTimeMillis();
         long executionTime = endTime - startTime;
         System.out.println("Total execution time: " + executionTime + " milliseconds");
@@ -78,38 +232,47 @@ public class LearningAgent implements Runnable {
      * The agent tries to reach the goal position while updating the Q-table based on the rewards received.
      */
     private void trainEpisode() {
+        epsilon = calculateEpsilon();
         currentEpisode++;
         resetAgent();
         stepsTaken = 0;
+        if (traces != null) {
+            traces.clear();
+        }
         while (!agentPosition.equals(goalPosition) && stepsTaken < MAX_STEPS) {
             int action = bestAction(agentPosition);
-            Position nextPosition = possibleMoveAgent(agentPosition, action);
-            System.out.println(agentPosition.getXCord() + ", " + agentPosition.getYCord());
-            System.out.println(nextPosition.getXCord() + " , " + nextPosition.getYCord());
+            if (traces != null && action != greedyAction(agentPosition)) {
+                traces.clear(); // Watkins Q(lambda) only credits the pairs visited since the last non-greedy action
+            }
+            Position nextPosition = possibleMoveAgent(maze, agentPosition, action);
+            if (VERBOSE) {
+                System.out.println(agentPosition.getXCord() + ", " + agentPosition.getYCord());
+                System.out.println(nextPosition.getXCord() + " , " + nextPosition.getYCord());
+            }
             double reward = getReward(nextPosition);
             updateQValue(agentPosition, nextPosition, reward, action);
+            if (replayBuffer != null) {
+                replayBuffer.append(agentPosition.getYCord() * width + agentPosition.getXCord(), action, (float) reward,
+                        nextPosition.getYCord() * width + nextPosition.getXCord());
+            }
             if (!nextPosition.isWall()) {
                 agentPosition = nextPosition;
             }
             stepsTaken++;
-
-            System.out.flush(); // Flush the output stream
         }
         System.out.println("Episode: " + currentEpisode + ", Steps taken: " + stepsTaken);
     }
 
     /**
      * Runs a single testing episode.
-     * The agent tries to reach the goal position using the learned Q-values, and the GUI is updated accordingly.
+     * The agent follows the route learned from the Q-values, and the GUI is updated accordingly.
      */
     public void testEpisode() {
         resetAgent();
-        while (!agentPosition.equals(goalPosition)) {
+        List<Position> route = queryRoute();
+        for (Position nextPosition : route) {
 
             System.out.flush(); // Flush the output stream
-            int action = selectActionForTesting();
-            Position nextPosition = possibleMoveAgent(agentPosition, action);
-            System.out.println("Agent takes action: " + action);
             System.out.println("Next position: (" + nextPosition.getXCord() + ", " + nextPosition.getYCord() + ")");
 
             // Update the maze and agent position
@@ -133,8 +296,110 @@ public class LearningAgent implements Runnable {
         System.out.println("Testing phase completed in " + stepsTaken + " steps");
     }
 
+    /**
+     * Returns the greedy route from the agent's start position to the goal.
+     * Routes are cached per maze, Q-table version and start state, so repeated queries from the same start cell are answered without walking the maze.
+     * The route stops after `MAX_STEPS` moves if the goal is not reached.
+     *
+     * @return The positions visited after the start position, in order.
+     */
+    public List<Position> queryRoute() {
+        Position start = map.getAgentPosition(position);
+        int startState = start.getYCord() * width + start.getXCord();
+        long version = qTableVersion.get();
+        List<Position> route = routeCache.get(map.getMazeHash(), version, startState);
+        if (route != null) {
+            return route;
+        }
+        List<Position> computed = new ArrayList<>();
+        Position current = start;
+        while (!current.equals(goalPosition) && computed.size() < MAX_STEPS) {
+            current = possibleMoveAgent(maze, current, greedyAction(current));
+            computed.add(current);
+        }
+        return routeCache.put(map.getMazeHash(), version, startState, computed);
+    }
+
+    /**
+     * Returns the cache of routes shared by all agents.
+     *
+     * @return The route cache.
+     */
+    public static RouteCache getRouteCache() {
+        return routeCache;
+    }
+
 
 
+    /**
+     * Re-trains the Q-values of the states the map marked dirty after `Map.applyChanges`, keeping the rest of the Q-table.
+     * The maze model is known, so each state is updated with a full backup over its four actions.
+     * Sweeps start from the changed cells and spread backwards to the neighbouring cells whenever a state's values change by more than `SWEEP_THRESHOLD`.
+     * This must not be called while agents are training on the same map.
+     *
+     * @return The number of states that were backed up.
+     */
+    public int retrainDirtyRegion() {
+        BitSet dirty = map.getDirtyStates();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        boolean[] queued = new boolean[length * width];
+        for (int state = dirty.nextSetBit(0); state >= 0; state = dirty.nextSetBit(state + 1)) {
+            queued[state] = true;
+            queue.add(state);
+        }
+        int budget = MAX_SWEEPS_PER_STATE * length * width;
+        int backups = 0;
+        synchronized (tableLock) {
+            while (!queue.isEmpty() && backups < budget) {
+                int state = queue.poll();
+                queued[state] = false;
+                Position current = maze[state % width][state / width];
+                if (current.isWall() || current.isGoal()) {
+                    continue; // Walls are never visited and episodes end at the goal
+                }
+                double maxChange = 0.0;
+                for (int action = 0; action < 4; action++) {
+                    Position nextPosition = possibleMoveAgent(maze, current, action);
+                    double target = getReward(nextPosition) + DISCOUNT_FACTOR * getMaxQValue(nextPosition);
+                    maxChange = Math.max(maxChange, Math.abs(target - qTable[state][action]));
+                    qTable[state][action] = target;
+                }
+                backups++;
+                if (maxChange > SWEEP_THRESHOLD) {
+                    int x = current.getXCord();
+                    int y = current.getYCord();
+                    enqueueNeighbour(queue, queued, x - 1, y);
+                    enqueueNeighbour(queue, queued, x + 1, y);
+                    enqueueNeighbour(queue, queued, x, y - 1);
+                    enqueueNeighbour(queue, queued, x, y + 1);
+                }
+            }
+            markTableUpdated();
+        }
+        map.clearDirtyStates();
+        System.out.println("Re-trained dirty region with " + backups + " backups");
+        return backups;
+    }
+
+    /**
+     * Adds the state of the given cell to the re-training queue if it is inside the maze, not a wall and not already queued.
+     *
+     * @param queue  The re-training queue.
+     * @param queued Flags indicating which states are already queued.
+     * @param x      The x-coordinate of the cell.
+     * @param y      The y-coordinate of the cell.
+     */
+    private void enqueueNeighbour(ArrayDeque<Integer> queue, boolean[] queued, int x, int y) {
+        if (x < 0 || x >= length || y < 0 || y >= width || maze[x][y].isWall()) {
+            return;
+        }
+        int state = y * width + x;
+        if (!queued[state]) {
+            queued[state] = true;
+            queue.add(state);
+        }
+    }
+
     /**
      * Resets the agent's position to the starting position and resets the steps taken.
      */
@@ -144,14 +409,14 @@ public class LearningAgent implements Runnable {
     }
 
     /**
-     * Calculates the current exploration rate (epsilon) based on the number of steps taken.
-     * The exploration rate starts at `INITIAL_EPSILON` and decays linearly to `MIN_EPSILON`.
+     * Calculates the exploration rate (epsilon) of the current episode from the epsilon schedule.
+     * By default the exploration rate starts at `INITIAL_EPSILON` and decays exponentially across episodes to `MIN_EPSILON`.
+     * The value is not clamped here, because every schedule carries its own floor.
      *
      * @return The current exploration rate.
      */
     private double calculateEpsilon() {
-        double epsilon = MIN_EPSILON + (INITIAL_EPSILON - MIN_EPSILON) * stepsTaken / MAX_STEPS;
-        return Math.max(MIN_EPSILON, epsilon); // Ensure epsilon does not go below the minimum value
+        return epsilonSchedule.valueAt(currentEpisode);
     }
 
     /**
@@ -161,47 +426,79 @@ public class LearningAgent implements Runnable {
      * @return The index of the best action.
      */
     private int bestAction(Position agent) {
-        double epsilon = calculateEpsilon();
         return selectActionEpsilonGreedy(agent, epsilon);
     }
 
     /**
      * Selects an action using the epsilon-greedy strategy.
      * With probability `epsilon`, a random action is selected (exploration).
-     * Otherwise, the action with the highest Q-value is selected (exploitation).
+     * Otherwise, the action with the highest Q-value, plus the exploration bonus if enabled, is selected (exploitation).
      *
      * @param agent   The current position of the agent.
      * @param epsilon The current exploration rate.
      * @return The index of the selected action.
      */
     private int selectActionEpsilonGreedy(Position agent, double epsilon) {
-        int[] actions = {0, 1, 2, 3};
         if (random.nextDouble() < epsilon) {
             // Exploration: Choose a random action
-            return actions[random.nextInt(actions.length)];
+            return random.nextInt(4);
         } else {
             // Exploitation: Choose the best-known action
-            int bestAction = actions[0];
-            double maxQValue = qTable[agent.getYCord() * length + agent.getXCord()][bestAction];
-            for (int action : actions) {
-                double qValue = qTable[agent.getYCord() * length + agent.getXCord()][action];
-                if (qValue > maxQValue) {
-                    maxQValue = qValue;
+            return explorationBonus > 0.0 ? optimisticAction(agent) : greedyAction(agent);
+        }
+    }
+
+    /**
+     * Selects the action with the highest Q-value plus count-based (UCB) exploration bonus for the given position.
+     *
+     * @param agent The current position of the agent.
+     * @return The index of the selected action.
+     */
+    private int optimisticAction(Position agent) {
+        int state = agent.getYCord() * length + agent.getXCord();
+        double[] qValues = qTable[state];
+        int bestAction = 0;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        synchronized (tableLock) {
+            double logVisits = Math.log(visitCounter.getStateCount(state) + 1.0);
+            for (int action = 0; action < 4; action++) {
+                double value = qValues[action] + explorationBonus * Math.sqrt(logVisits / (visitCounter.getCount(state, action) + 1.0));
+                if (value > bestValue) {
+                    bestValue = value;
                     bestAction = action;
                 }
             }
-            return bestAction;
         }
+        return bestAction;
+    }
+
+    /**
+     * Selects the action with the highest Q-value for the given position.
+     *
+     * @param agent The current position of the agent.
+     * @return The index of the best-known action.
+     */
+    private int greedyAction(Position agent) {
+        double[] qValues = qTable[agent.getYCord() * length + agent.getXCord()];
+        int bestAction = 0;
+        for (int action = 1; action < 4; action++) {
+            if (qValues[action] > qValues[bestAction]) {
+                bestAction = action;
+            }
+        }
+        return bestAction;
     }
 
     /**
      * Determines the next position of the agent based on the given action.
+     * The maze model is shared with the other learners, such as the `DenseQAgent`.
      *
+     * @param maze     The maze representation.
      * @param position The current position of the agent.
      * @param action   The action to be taken (0: up, 1: down, 2: left, 3: right).
      * @return The next position of the agent, or the current position if the move is not possible.
      */
-    private Position possibleMoveAgent(Position position, int action) {
+    static Position possibleMoveAgent(Position[][] maze, Position position, int action) {
         int x = position.getXCord();
         int y = position.getYCord();
         Position nextPosition = null;
@@ -240,7 +537,7 @@ public class LearningAgent implements Runnable {
      * @param position The current position of the agent.
      * @return The reward for the current position.
      */
-    private double getReward(Position position) {
+    static double getReward(Position position) {
         if (position.isGoal()) {
             return 100.0; // Reward for reaching the goal
         } else if (position.isWall()) {
@@ -252,6 +549,7 @@ public class LearningAgent implements Runnable {
 
     /**
      * Updates the Q-value for the current state-action pair.
+     * With eligibility traces enabled, the recently visited state-action pairs are updated as well.
      *
      * @param position      The current position of the agent.
      * @param nextPosition  The next position of the agent.
@@ -265,14 +563,63 @@ public class LearningAgent implements Runnable {
         double maxQValue;
         double updatedQValue;
 
-        synchronized (qTableLock) {
+        synchronized (tableLock) {
             qValue = qTable[y * width + x][action];
             maxQValue = getMaxQValue(nextPosition);
-            updatedQValue = qValue + LEARNING_RATE * (reward + DISCOUNT_FACTOR * maxQValue - qValue);
-            qTable[y * width + x][action] = updatedQValue;
+            int visits = visitCounter.increment(y * width + x, action);
+            double learningRate = countBasedLearningRate ? Math.max(LEARNING_RATE, 1.0 / visits) : LEARNING_RATE;
+            double tdError = reward + DISCOUNT_FACTOR * maxQValue - qValue;
+            if (traces == null) {
+                qTable[y * width + x][action] = qValue + learningRate * tdError;
+            } else {
+                traces.visit(y * width + x, action);
+                traces.apply(qTable, learningRate * tdError);
+                traces.decay(DISCOUNT_FACTOR * traceDecay);
+            }
+            updatedQValue = qTable[y * width + x][action];
+            markTableUpdated();
+        }
+        if (VERBOSE) {
+            System.out.println("Q-value before update: " + qValue);
+            System.out.println("Updated Q-value at position (" + x + ", " + y + "), action " + action + ": " + updatedQValue);
+        }
+    }
+
+    /**
+     * Applies one-step Q-learning backups for a batch of replayed transitions, holding the table lock once for the whole batch.
+     *
+     * @param states     The state index of each transition.
+     * @param actions    The action index of each transition.
+     * @param rewards    The reward of each transition.
+     * @param nextStates The next state index of each transition.
+     * @param count      The number of transitions in the batch.
+     * @param tdErrors   The buffer receiving the temporal-difference error of each transition.
+     */
+    void applyReplayBatch(int[] states, int[] actions, float[] rewards, int[] nextStates, int count, double[] tdErrors) {
+        synchronized (tableLock) {
+            for (int i = 0; i < count; i++) {
+                double[] nextQValues = qTable[nextStates[i]];
+                double maxQValue = nextQValues[0];
+                for (int nextAction = 1; nextAction < 4; nextAction++) {
+                    maxQValue = Math.max(maxQValue, nextQValues[nextAction]);
+                }
+                double qValue = qTable[states[i]][actions[i]];
+                double tdError = rewards[i] + DISCOUNT_FACTOR * maxQValue - qValue;
+                qTable[states[i]][actions[i]] = qValue + LEARNING_RATE * tdError;
+                tdErrors[i] = tdError;
+            }
+            markTableUpdated();
+        }
+    }
+
+    /**
+     * Bumps the Q-table version after an update of the shared Q-table, so that cached routes are no longer used.
+     * Updates of private Q-tables do not touch the version, so workers training in parallel do not contend on it.
+     */
+    private void markTableUpdated() {
+        if (tableLock == qTableLock) {
+            qTableVersion.incrementAndGet();
         }
-        System.out.println("Q-value before update: " + qValue);
-        System.out.println("Updated Q-value at position (" + x + ", " + y + "), action " + action + ": " + updatedQValue);
     }
 
     /**
@@ -291,34 +638,10 @@ public class LearningAgent implements Runnable {
                 maxQValue = qValue;
             }
         }
-        System.out.println("max Q value is this : " + maxQValue);
-        return maxQValue;
-    }
-
-    /**
-     * Selects an action for the testing phase using a softmax-based approach.
-     *
-     * @return The index of the selected action.
-     */
-    private int selectActionForTesting() {
-        double[] probabilities = new double[4];
-        double sum = 0.0;
-        for (int i = 0; i < 4; i++) {
-            probabilities[i] = Math.exp(qTable[agentPosition.getYCord() * length + agentPosition.getXCord()][i]);
-            sum += probabilities[i];
-        }
-        for (int i = 0; i < 4; i++) {
-            probabilities[i] /= sum;
-        }
-        double rand = random.nextDouble();
-        double cumulativeProbability = 0.0;
-        for (int i = 0; i < 4; i++) {
-            cumulativeProbability += probabilities[i];
-            if (rand < cumulativeProbability) {
-                return i;
-            }
+        if (VERBOSE) {
+            System.out.println("max Q value is this : " + maxQValue);
         }
-        return random.nextInt(4);
+        return maxQValue;
     }
 
 
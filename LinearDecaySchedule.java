@@ -0,0 +1,33 @@
+/**
+ * The `LinearDecaySchedule` class is a `Schedule` that decays linearly from a start value to an end value over a fixed number of episodes.
+ * After the last decay episode the end value is kept.
+ */
+public class LinearDecaySchedule implements Schedule {
+    private final double startValue; // The value at the first episode
+    private final double endValue; // The value once the decay is over
+    private final int decayEpisodes; // The number of episodes over which the value decays
+
+    /**
+     * Constructs a new instance of the `LinearDecaySchedule` class.
+     *
+     * @param startValue    The value at the first episode.
+     * @param endValue      The value once the decay is over.
+     * @param decayEpisodes The number of episodes over which the value decays.
+     */
+    public LinearDecaySchedule(double startValue, double endValue, int decayEpisodes) {
+        if (decayEpisodes <= 0) {
+            throw new IllegalArgumentException("Decay episodes must be positive");
+        }
+        this.startValue = startValue;
+        this.endValue = endValue;
+        this.decayEpisodes = decayEpisodes;
+    }
+
+    @Override
+    public double valueAt(int episode) {
+        if (episode >= decayEpisodes) {
+            return endValue;
+        }
+        return startValue + (endValue - startValue) * episode / decayEpisodes;
+    }
+}
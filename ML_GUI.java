@@ -11,6 +11,14 @@ import java.util.List;
  * The class also handles the creation and management of the `LearningAgent` instances and the rendering of the maze.
  */
 public class ML_GUI extends JFrame {
+    private static final boolean PARALLEL_TRAINING = false; // Whether to train with the deterministic `ParallelTrainer` instead of one thread per agent
+    private static final long PARALLEL_TRAINING_SEED = 42; // The seed of the deterministic parallel training
+    private static final boolean EXPERIENCE_REPLAY = false; // Whether a `ReplayLearner` thread replays the agents' transitions while they train
+    private static final int REPLAY_CAPACITY = 4096; // The number of transitions kept for replay
+    private static final int REPLAY_BATCH_SIZE = 32; // The number of transitions per replayed mini-batch
+    private static final double REPLAY_RATIO = 1.0; // The number of replayed transitions per transition the agents append
+    private static final boolean DENSE_Q_AGENT = false; // Whether to train a `DenseQAgent` per agent instead of the Q-table agents
+    private static final long DENSE_Q_AGENT_SEED = 42; // The seed of the first dense agent's network and exploration
     private final JPanel greedPanel; // The panel for displaying the maze
     private final JPanel metadataPanel; // The panel for displaying additional information
     JButton maze1Button ;
@@ -163,15 +171,33 @@ public class ML_GUI extends JFrame {
 
         // Create an instance of LearningAgent and start its thread
         int numAgents = map.getNumber_of_agent(); // Number of concurrent agents
+        if (DENSE_Q_AGENT) {
+            startDenseAgents(map, numAgents);
+            return;
+        }
         List<LearningAgent> agents = new ArrayList<>();
         List<Thread> agentThreads = new ArrayList<>();
 
+        if (PARALLEL_TRAINING) {
+            new ParallelTrainer(map, numAgents, PARALLEL_TRAINING_SEED, ParallelTrainer.MergeMode.AVERAGE).train();
+        }
+        ReplayBuffer replayBuffer = EXPERIENCE_REPLAY && !PARALLEL_TRAINING ? new ReplayBuffer(REPLAY_CAPACITY) : null;
         for (int i = 0; i < numAgents; i++) {
             LearningAgent agent = new LearningAgent(map, this, i);
             agents.add(agent);
-            Thread agentThread = new Thread(agent);
-            agentThreads.add(agentThread);
-            agentThread.start();
+            if (!PARALLEL_TRAINING) {
+                agent.setReplayBuffer(replayBuffer);
+                Thread agentThread = new Thread(agent);
+                agentThreads.add(agentThread);
+                agentThread.start();
+            }
+        }
+        ReplayLearner replayLearner = null;
+        Thread replayThread = null;
+        if (replayBuffer != null) {
+            replayLearner = new ReplayLearner(replayBuffer, agents.get(0), REPLAY_BATCH_SIZE, REPLAY_RATIO, true, System.nanoTime());
+            replayThread = new Thread(replayLearner);
+            replayThread.start();
         }
 
         for (Thread agentThread : agentThreads) {
@@ -181,6 +207,14 @@ public class ML_GUI extends JFrame {
                 e.printStackTrace();
             }
         }
+        if (replayLearner != null) {
+            replayLearner.stop();
+            try {
+                replayThread.join(); // Wait for the last replayed mini-batch
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
 
         // Run testing phase for each agent in separate threads
         for (LearningAgent agent : agents) {
@@ -189,6 +223,36 @@ public class ML_GUI extends JFrame {
         }
     resetGUI();
     }
+
+    /**
+     * Trains one `DenseQAgent` per agent start cell, each in its own thread, and then runs their testing phases.
+     *
+     * @param map       The map of the maze.
+     * @param numAgents The number of agents.
+     */
+    private void startDenseAgents(Map map, int numAgents) {
+        List<DenseQAgent> agents = new ArrayList<>();
+        List<Thread> agentThreads = new ArrayList<>();
+        for (int i = 0; i < numAgents; i++) {
+            DenseQAgent agent = new DenseQAgent(map, i, DENSE_Q_AGENT_SEED + i);
+            agents.add(agent);
+            Thread agentThread = new Thread(agent);
+            agentThreads.add(agentThread);
+            agentThread.start();
+        }
+        for (Thread agentThread : agentThreads) {
+            try {
+                agentThread.join(); // Wait for the training thread to complete
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        for (DenseQAgent agent : agents) {
+            Thread testThread = new Thread(() -> agent.testEpisode(this));
+            testThread.start();
+        }
+        resetGUI();
+    }
     private void resetGUI() {
         this.greedPanel.removeAll();
         this.metadataPanel.removeAll();
@@ -1,4 +1,8 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * The `Map` class represents the maze that the learning agent navigates.
@@ -6,12 +10,15 @@ import java.util.ArrayList;
  */
 public class Map {
     private final ArrayList<Position> agentPositions = new ArrayList<>(); // List of agent positions
-    private Position goalPosition; // The goal position in the maze
+    private Position goalPosition; // The goal position in the maze, the last goal cell if there are several
+    private final ArrayList<Position> goalPositions = new ArrayList<>(); // List of goal positions, in row-major order
     private final Position[][] convertedMaze; // The maze representation as an array of Positions
 
     private int number_of_agent = 0; // The number of agents in the maze
 
     private final int[][] maze; // The original maze representation
+    private int mazeHash; // The hash of the original maze representation
+    private final BitSet dirtyStates = new BitSet(); // The states affected by changes since the last re-training
 
     /**
      * Converts the given maze representation into an array of `Position` objects.
@@ -31,6 +38,7 @@ public class Map {
                 } else if (maze[xCord][yCord] == 3) {
                     mapConverted[xCord][yCord] = new Position(xCord, yCord, false, true, false);
                     this.goalPosition = mapConverted[xCord][yCord];
+                    this.goalPositions.add(mapConverted[xCord][yCord]);
                 } else if (maze[xCord][yCord] == 2) {
                     mapConverted[xCord][yCord] = new Position(xCord, yCord, false, false, true);
                     this.agentPositions.add(mapConverted[xCord][yCord]);
@@ -53,8 +61,12 @@ public class Map {
      * @param maze The original maze representation.
      */
     public Map(int[][] maze) {
-        this.maze = maze;
-        this.convertedMaze = convertMaze(maze);
+        this.maze = new int[maze.length][];
+        for (int xCord = 0; xCord < maze.length; xCord++) {
+            this.maze[xCord] = maze[xCord].clone(); // Copy so that later changes do not leak into the caller's maze
+        }
+        this.convertedMaze = convertMaze(this.maze);
+        this.mazeHash = Arrays.deepHashCode(this.maze);
         int length = this.maze.length;
         int width = this.maze[0].length;
         printMap();
@@ -65,6 +77,73 @@ public class Map {
         }
     }
 
+    /**
+     * Applies the given changed cells to the maze and marks the affected states dirty.
+     * A state is affected if its cell changed or if it is next to a changed cell, because moves out of it may now be blocked or freed.
+     * State indices follow the Q-table layout, `yCord * width + xCord`.
+     *
+     * @param diff The changed cells.
+     * @throws IllegalArgumentException if a change is out of bounds or targets the goal or an agent start cell.
+     */
+    public void applyChanges(MazeDiff diff) {
+        int length = maze.length;
+        int width = maze[0].length;
+        for (int i = 0; i < diff.size(); i++) {
+            int xCord = diff.getXCord(i);
+            int yCord = diff.getYCord(i);
+            if (xCord < 0 || xCord >= length || yCord < 0 || yCord >= width) {
+                throw new IllegalArgumentException("Changed cell (" + xCord + ", " + yCord + ") is outside the maze");
+            }
+            if (maze[xCord][yCord] == 2 || maze[xCord][yCord] == 3) {
+                throw new IllegalArgumentException("Changed cell (" + xCord + ", " + yCord + ") is a goal or agent start cell");
+            }
+        }
+        for (int i = 0; i < diff.size(); i++) {
+            int xCord = diff.getXCord(i);
+            int yCord = diff.getYCord(i);
+            int value = diff.getValue(i);
+            if (maze[xCord][yCord] == value) {
+                continue;
+            }
+            maze[xCord][yCord] = value;
+            convertedMaze[xCord][yCord] = new Position(xCord, yCord, value == 1, false, false);
+            markDirty(xCord, yCord);
+            markDirty(xCord - 1, yCord);
+            markDirty(xCord + 1, yCord);
+            markDirty(xCord, yCord - 1);
+            markDirty(xCord, yCord + 1);
+        }
+        mazeHash = Arrays.deepHashCode(maze);
+    }
+
+    /**
+     * Marks the state of the given cell dirty if the cell is inside the maze.
+     *
+     * @param xCord The x-coordinate of the cell.
+     * @param yCord The y-coordinate of the cell.
+     */
+    private void markDirty(int xCord, int yCord) {
+        if (xCord >= 0 && xCord < maze.length && yCord >= 0 && yCord < maze[0].length) {
+            dirtyStates.set(yCord * maze[0].length + xCord);
+        }
+    }
+
+    /**
+     * Returns a copy of the states affected by changes since the last call to `clearDirtyStates`.
+     *
+     * @return The dirty state indices.
+     */
+    public BitSet getDirtyStates() {
+        return (BitSet) dirtyStates.clone();
+    }
+
+    /**
+     * Clears the set of dirty states, typically after the affected states have been re-trained.
+     */
+    public void clearDirtyStates() {
+        dirtyStates.clear();
+    }
+
     /**
      * Returns the original maze representation.
      *
@@ -74,6 +153,16 @@ public class Map {
         return maze;
     }
 
+    /**
+     * Returns a hash of the original maze representation.
+     * Two maps with the same layout have the same hash.
+     *
+     * @return The hash of the maze.
+     */
+    public int getMazeHash() {
+        return mazeHash;
+    }
+
     /**
      * Returns the converted maze representation as an array of `Position` objects.
      *
@@ -95,6 +184,7 @@ public class Map {
 
     /**
      * Returns the goal position in the maze.
+     * If the maze has several goals, this is the last one in row-major order; use `getGoalPositions` to get all of them.
      *
      * @return The goal position.
      */
@@ -102,6 +192,16 @@ public class Map {
         return goalPosition;
     }
 
+    /**
+     * Returns all goal positions in the maze, in row-major order.
+     * The index of a goal in this list is the goal index used by the `MultiGoalAgent`.
+     *
+     * @return An unmodifiable list of the goal positions.
+     */
+    public List<Position> getGoalPositions() {
+        return Collections.unmodifiableList(goalPositions);
+    }
+
     /**
      * Prints the original maze representation.
      */
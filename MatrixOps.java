@@ -0,0 +1,126 @@
+import java.util.Arrays;
+
+/**
+ * The `MatrixOps` class provides the dense matrix products used by the `QNetwork`.
+ * Matrices are stored row-major in flat `float[]` buffers, and the products are cache-blocked so that the tiles being multiplied stay in the CPU cache.
+ * None of the methods allocate.
+ */
+public final class MatrixOps {
+    private static final int BLOCK_SIZE = 64; // The side of the square tiles the loops are blocked into
+
+    private MatrixOps() {
+    }
+
+    /**
+     * Computes `C = A * B`, where `A` is m x k, `B` is k x n and `C` is m x n.
+     *
+     * @param a       The buffer holding `A`.
+     * @param aOffset The index of the first element of `A` in its buffer.
+     * @param b       The buffer holding `B`, starting at index 0.
+     * @param c       The buffer receiving `C`.
+     * @param cOffset The index of the first element of `C` in its buffer.
+     * @param m       The number of rows of `A` and `C`.
+     * @param k       The number of columns of `A` and rows of `B`.
+     * @param n       The number of columns of `B` and `C`.
+     */
+    public static void multiply(float[] a, int aOffset, float[] b, float[] c, int cOffset, int m, int k, int n) {
+        Arrays.fill(c, cOffset, cOffset + m * n, 0.0f);
+        for (int i0 = 0; i0 < m; i0 += BLOCK_SIZE) {
+            int iMax = Math.min(i0 + BLOCK_SIZE, m);
+            for (int p0 = 0; p0 < k; p0 += BLOCK_SIZE) {
+                int pMax = Math.min(p0 + BLOCK_SIZE, k);
+                for (int j0 = 0; j0 < n; j0 += BLOCK_SIZE) {
+                    int jMax = Math.min(j0 + BLOCK_SIZE, n);
+                    for (int i = i0; i < iMax; i++) {
+                        int aRow = aOffset + i * k;
+                        int cRow = cOffset + i * n;
+                        for (int p = p0; p < pMax; p++) {
+                            float aValue = a[aRow + p];
+                            if (aValue == 0.0f) {
+                                continue; // Inputs and ReLU activations are often zero
+                            }
+                            int bRow = p * n;
+                            for (int j = j0; j < jMax; j++) {
+                                c[cRow + j] += aValue * b[bRow + j];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes `C = transpose(A) * B`, where `A` is m x k, `B` is m x n and `C` is k x n.
+     * This is the product used for weight gradients, where `m` is the batch size.
+     *
+     * @param a       The buffer holding `A`.
+     * @param aOffset The index of the first element of `A` in its buffer.
+     * @param b       The buffer holding `B`.
+     * @param bOffset The index of the first element of `B` in its buffer.
+     * @param c       The buffer receiving `C`, starting at index 0.
+     * @param m       The number of rows of `A` and `B`.
+     * @param k       The number of columns of `A` and rows of `C`.
+     * @param n       The number of columns of `B` and `C`.
+     */
+    public static void multiplyTransposeA(float[] a, int aOffset, float[] b, int bOffset, float[] c, int m, int k, int n) {
+        Arrays.fill(c, 0, k * n, 0.0f);
+        for (int i0 = 0; i0 < m; i0 += BLOCK_SIZE) {
+            int iMax = Math.min(i0 + BLOCK_SIZE, m);
+            for (int p0 = 0; p0 < k; p0 += BLOCK_SIZE) {
+                int pMax = Math.min(p0 + BLOCK_SIZE, k);
+                for (int j0 = 0; j0 < n; j0 += BLOCK_SIZE) {
+                    int jMax = Math.min(j0 + BLOCK_SIZE, n);
+                    for (int i = i0; i < iMax; i++) {
+                        int aRow = aOffset + i * k;
+                        int bRow = bOffset + i * n;
+                        for (int p = p0; p < pMax; p++) {
+                            float aValue = a[aRow + p];
+                            if (aValue == 0.0f) {
+                                continue;
+                            }
+                            int cRow = p * n;
+                            for (int j = j0; j < jMax; j++) {
+                                c[cRow + j] += aValue * b[bRow + j];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes `C = A * transpose(B)`, where `A` is m x n, `B` is k x n and `C` is m x k.
+     * This is the product used to propagate errors back through a layer.
+     *
+     * @param a       The buffer holding `A`.
+     * @param aOffset The index of the first element of `A` in its buffer.
+     * @param b       The buffer holding `B`, starting at index 0.
+     * @param c       The buffer receiving `C`.
+     * @param cOffset The index of the first element of `C` in its buffer.
+     * @param m       The number of rows of `A` and `C`.
+     * @param n       The number of columns of `A` and `B`.
+     * @param k       The number of rows of `B` and columns of `C`.
+     */
+    public static void multiplyTransposeB(float[] a, int aOffset, float[] b, float[] c, int cOffset, int m, int n, int k) {
+        for (int i0 = 0; i0 < m; i0 += BLOCK_SIZE) {
+            int iMax = Math.min(i0 + BLOCK_SIZE, m);
+            for (int p0 = 0; p0 < k; p0 += BLOCK_SIZE) {
+                int pMax = Math.min(p0 + BLOCK_SIZE, k);
+                for (int i = i0; i < iMax; i++) {
+                    int aRow = aOffset + i * n;
+                    int cRow = cOffset + i * k;
+                    for (int p = p0; p < pMax; p++) {
+                        int bRow = p * n;
+                        float sum = 0.0f;
+                        for (int j = 0; j < n; j++) {
+                            sum += a[aRow + j] * b[bRow + j];
+                        }
+                        c[cRow + p] = sum;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The `MazeDiff` class represents a set of changed cells that should be applied to an existing `Map`.
+ * Only walls can be added or removed; the goal and the agent start cells cannot be changed by a diff.
+ */
+public class MazeDiff {
+    private final List<int[]> changes = new ArrayList<>(); // The changed cells as {xCord, yCord, isWall ? 1 : 0}
+
+    /**
+     * Marks the given cell as a wall or as a free cell.
+     *
+     * @param xCord The x-coordinate of the cell.
+     * @param yCord The y-coordinate of the cell.
+     * @param wall  `true` if the cell becomes a wall, `false` if it becomes free.
+     * @return This diff, so calls can be chained.
+     */
+    public MazeDiff setWall(int xCord, int yCord, boolean wall) {
+        changes.add(new int[]{xCord, yCord, wall ? 1 : 0});
+        return this;
+    }
+
+    /**
+     * Returns the number of changed cells in this diff.
+     *
+     * @return The number of changed cells.
+     */
+    public int size() {
+        return changes.size();
+    }
+
+    /**
+     * Returns the x-coordinate of the changed cell at the specified index.
+     *
+     * @param n The index of the change.
+     * @return The x-coordinate of the cell.
+     */
+    public int getXCord(int n) {
+        return changes.get(n)[0];
+    }
+
+    /**
+     * Returns the y-coordinate of the changed cell at the specified index.
+     *
+     * @param n The index of the change.
+     * @return The y-coordinate of the cell.
+     */
+    public int getYCord(int n) {
+        return changes.get(n)[1];
+    }
+
+    /**
+     * Returns the new maze value of the changed cell at the specified index (1 for a wall, 0 for a free cell).
+     *
+     * @param n The index of the change.
+     * @return The new maze value of the cell.
+     */
+    public int getValue(int n) {
+        return changes.get(n)[2];
+    }
+}
@@ -0,0 +1,188 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The `MultiGoalAgent` class represents an agent that learns routes to every goal of a maze at once with goal-conditioned Q-learning.
+ * The Q-values of all goals live in one flat `double[]` laid out goal-major, so the value of (goal, state, action) is at `(goal * states + state) * 4 + action`.
+ * Each episode rolls out towards one goal, but every transition is relabeled for all goals, hindsight-style, and updates each goal's Q-value in a single strided loop.
+ * All goals are thus trained for the price of one rollout per episode, and the route to any goal can be queried afterwards.
+ * The class is not thread-safe; an agent owns its Q-table.
+ */
+public class MultiGoalAgent implements Runnable {
+    private static final double DISCOUNT_FACTOR = 0.9; // The discount factor used in the Q-learning algorithm
+    private static final double LEARNING_RATE = 0.3; // The learning rate used in the Q-learning algorithm
+    private static final double INITIAL_EPSILON = 1.0; // The initial exploration rate
+    private static final double MIN_EPSILON = 0.01; // The minimum exploration rate
+    private static final double EPSILON_DECAY = 0.95; // The factor epsilon is multiplied by every episode
+    private static final int MAX_STEPS = 1000; // The maximum number of steps per episode
+    private static final int NUM_EPISODES = 200; // The number of episodes in the training phase, shared by all goals
+    private static final double GOAL_REWARD = 100.0; // The reward for reaching the goal an update is relabeled for
+    private static final double STEP_REWARD = -1.0; // The reward for every other step, including steps onto other goals
+
+    private final Map map; // The map of the maze
+    private final Position[][] maze; // The maze representation
+    private final int width; // The width of the maze
+    private final int numStates; // The number of states per goal
+    private final int goalStride; // The distance between the Q-values of consecutive goals in the Q-table
+    private final List<Position> goalPositions; // The goal positions, indexed by goal
+    private final int[] goalStates; // The state index of each goal
+    private final double[] qTable; // The goal-conditioned Q-values, goal-major
+    private final int position; // The index of the agent
+    private final Random random; // A random number generator
+    private final Schedule epsilonSchedule = new ExponentialDecaySchedule(INITIAL_EPSILON, MIN_EPSILON, EPSILON_DECAY); // The exploration rate per episode
+    private int currentEpisode = 0; // The current episode of the training phase
+
+    /**
+     * Constructs a new instance of the `MultiGoalAgent` class with randomly initialized Q-values.
+     *
+     * @param map      The map of the maze.
+     * @param position The index of the agent.
+     * @param seed     The seed of the Q-value initialization and of the exploration.
+     */
+    public MultiGoalAgent(Map map, int position, long seed) {
+        this.map = map;
+        this.maze = map.getConvertedMaze();
+        this.width = maze[0].length;
+        this.numStates = maze.length * width;
+        this.goalStride = numStates * 4;
+        this.goalPositions = map.getGoalPositions();
+        this.goalStates = new int[goalPositions.size()];
+        for (int goal = 0; goal < goalStates.length; goal++) {
+            goalStates[goal] = stateOf(goalPositions.get(goal));
+        }
+        this.position = position;
+        this.random = new Random(seed);
+        this.qTable = new double[goalStates.length * goalStride];
+        for (int i = 0; i < qTable.length; i++) {
+            qTable[i] = random.nextDouble(); // Initialize Q-values randomly
+        }
+    }
+
+    /**
+     * Returns the number of goals the agent learns routes to.
+     *
+     * @return The number of goals.
+     */
+    public int getGoalCount() {
+        return goalStates.length;
+    }
+
+    /**
+     * Returns the Q-value of the given goal, state and action.
+     *
+     * @param goal   The goal index, as in `Map.getGoalPositions`.
+     * @param state  The state index, `yCord * width + xCord`.
+     * @param action The action index.
+     * @return The Q-value.
+     */
+    public double getQValue(int goal, int state, int action) {
+        return qTable[goal * goalStride + state * 4 + action];
+    }
+
+    @Override
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        while (currentEpisode < NUM_EPISODES) {
+            trainEpisode();
+        }
+        long endTime = System.currentTimeMillis();
+        System.out.println("Total execution time: " + (endTime - startTime) + " milliseconds");
+    }
+
+    /**
+     * Runs a single training episode.
+     * The goal of the rollout cycles through the goals from episode to episode, so each goal's neighbourhood gets explored.
+     * The episode ends when the rollout's goal is reached; stepping onto another goal on the way does not end it.
+     */
+    private void trainEpisode() {
+        double epsilon = epsilonSchedule.valueAt(currentEpisode);
+        int goal = currentEpisode % goalStates.length;
+        currentEpisode++;
+        Position agentPosition = map.getAgentPosition(position);
+        int stepsTaken = 0;
+        while (stateOf(agentPosition) != goalStates[goal] && stepsTaken < MAX_STEPS) {
+            int state = stateOf(agentPosition);
+            int action = random.nextDouble() < epsilon ? random.nextInt(4) : greedyAction(goal, state);
+            Position nextPosition = LearningAgent.possibleMoveAgent(maze, agentPosition, action);
+            relabelAndUpdate(state, action, stateOf(nextPosition));
+            agentPosition = nextPosition;
+            stepsTaken++;
+        }
+        System.out.println("Episode: " + currentEpisode + ", Goal: " + goal + ", Steps taken: " + stepsTaken);
+    }
+
+    /**
+     * Applies the one-step Q-learning update of a transition for every goal.
+     * For each goal the transition is relabeled: it earns `GOAL_REWARD` and is terminal if it reaches that goal, and earns `STEP_REWARD` otherwise.
+     * The goals' Q-values of the transition are `goalStride` apart, so the update walks the Q-table with a constant stride and no branches other than the terminal check.
+     *
+     * @param state     The state index.
+     * @param action    The action index.
+     * @param nextState The next state index.
+     */
+    private void relabelAndUpdate(int state, int action, int nextState) {
+        int index = state * 4 + action;
+        int nextIndex = nextState * 4;
+        for (int goal = 0; goal < goalStates.length; goal++, index += goalStride, nextIndex += goalStride) {
+            double target;
+            if (nextState == goalStates[goal]) {
+                target = GOAL_REWARD;
+            } else {
+                double maxQValue = Math.max(Math.max(qTable[nextIndex], qTable[nextIndex + 1]),
+                        Math.max(qTable[nextIndex + 2], qTable[nextIndex + 3]));
+                target = STEP_REWARD + DISCOUNT_FACTOR * maxQValue;
+            }
+            qTable[index] += LEARNING_RATE * (target - qTable[index]);
+        }
+    }
+
+    /**
+     * Selects the action with the highest Q-value for the given goal and state.
+     *
+     * @param goal  The goal index.
+     * @param state The state index.
+     * @return The index of the best-known action.
+     */
+    private int greedyAction(int goal, int state) {
+        int base = goal * goalStride + state * 4;
+        int bestAction = 0;
+        for (int action = 1; action < 4; action++) {
+            if (qTable[base + action] > qTable[base + bestAction]) {
+                bestAction = action;
+            }
+        }
+        return bestAction;
+    }
+
+    /**
+     * Returns the state index of the given position.
+     *
+     * @param position The position.
+     * @return The state index, `yCord * width + xCord`.
+     */
+    private int stateOf(Position position) {
+        return position.getYCord() * width + position.getXCord();
+    }
+
+    /**
+     * Returns the greedy route from the agent's start position to the given goal.
+     * The route stops after `MAX_STEPS` moves if the goal is not reached.
+     *
+     * @param goal The goal index, as in `Map.getGoalPositions`.
+     * @return The positions visited after the start position, in order.
+     * @throws IllegalArgumentException if the goal index is out of range.
+     */
+    public List<Position> queryRoute(int goal) {
+        if (goal < 0 || goal >= goalStates.length) {
+            throw new IllegalArgumentException("Goal index " + goal + " is out of range");
+        }
+        List<Position> route = new ArrayList<>();
+        Position current = map.getAgentPosition(position);
+        while (stateOf(current) != goalStates[goal] && route.size() < MAX_STEPS) {
+            current = LearningAgent.possibleMoveAgent(maze, current, greedyAction(goal, stateOf(current)));
+            route.add(current);
+        }
+        return route;
+    }
+}
@@ -0,0 +1,192 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The `ParallelTrainer` class trains a Q-table with several workers in synchronous rounds.
+ * In every round each worker copies the global Q-table, trains on its private copy for a fixed number of episodes, and the changes of all workers are then merged back into the global table.
+ * Workers never share state while training and their changes are merged in a fixed order, so the result only depends on the seed and the number of workers.
+ *
+ * Every worker's change is measured from the same snapshot of the round, so the changes of several workers to one entry are alternative estimates of the same update, not independent updates.
+ * Adding them all at full weight would apply the update once per worker and overshoot, so both merge modes keep each entry within the range of the workers' values.
+ */
+public class ParallelTrainer {
+    /**
+     * The `MergeMode` enum lists the ways the workers' changes to an entry are combined at the end of a round.
+     */
+    public enum MergeMode {
+        /**
+         * The changes of all workers are summed and divided by the number of workers, so an entry only one worker changed moves by a fraction of that change.
+         */
+        AVERAGE,
+        /**
+         * The changes of the workers that changed an entry are averaged, so an entry only one worker changed takes that worker's value.
+         * Where the workers changed disjoint entries, for example because they start from different cells, this is the same as summing their changes.
+         */
+        MEAN_OF_CONTRIBUTORS
+    }
+
+    private static final int NUM_ROUNDS = 12; // The default number of synchronous rounds
+    private static final int EPISODES_PER_ROUND = 10; // The default number of episodes each worker runs per round
+
+    private final Map map; // The map of the maze
+    private final int numWorkers; // The number of workers
+    private final MergeMode mergeMode; // How the workers' changes are combined
+    private final double[][] qTable; // The global Q-table
+    private final double[][][] workerTables; // The private Q-table of each worker
+    private final LearningAgent[] workers; // The agent of each worker
+
+    /**
+     * Constructs a new instance of the `ParallelTrainer` class.
+     * Worker `i` starts its episodes from agent position `i` modulo the number of agents in the map.
+     *
+     * @param map        The map of the maze.
+     * @param numWorkers The number of workers.
+     * @param seed       The seed of the initial Q-table and of the workers' random number generators.
+     * @param mergeMode  How the workers' changes are combined.
+     * @throws IllegalArgumentException if the number of workers is not positive or the map has no agent start cells.
+     */
+    public ParallelTrainer(Map map, int numWorkers, long seed, MergeMode mergeMode) {
+        if (numWorkers <= 0) {
+            throw new IllegalArgumentException("Number of workers must be positive");
+        }
+        if (map.getNumber_of_agent() <= 0) {
+            throw new IllegalArgumentException("Map must have at least one agent start cell");
+        }
+        Position[][] maze = map.getConvertedMaze();
+        int numStates = maze.length * maze[0].length;
+        Random random = new Random(seed);
+        this.map = map;
+        this.numWorkers = numWorkers;
+        this.mergeMode = mergeMode;
+        this.qTable = new double[numStates][4];
+        for (int i = 0; i < numStates; i++) {
+            for (int j = 0; j < 4; j++) {
+                qTable[i][j] = random.nextDouble(); // Initialize Q-values randomly
+            }
+        }
+        this.workerTables = new double[numWorkers][numStates][4];
+        this.workers = new LearningAgent[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            VisitCounter visitCounter = new VisitCounter(numStates);
+            workers[i] = new LearningAgent(map, i % map.getNumber_of_agent(), workerTables[i], visitCounter, random.nextLong());
+        }
+    }
+
+    /**
+     * Trains the Q-table for the default number of rounds and episodes and loads it as the shared Q-table of the map.
+     *
+     * @return The trained Q-table.
+     */
+    public double[][] train() {
+        double[][] trained = train(NUM_ROUNDS, EPISODES_PER_ROUND);
+        LearningAgent.loadSharedQTable(map, trained);
+        return trained;
+    }
+
+    /**
+     * Trains the Q-table for the given number of synchronous rounds.
+     *
+     * @param rounds           The number of rounds.
+     * @param episodesPerRound The number of episodes each worker runs per round.
+     * @return The trained Q-table.
+     */
+    public double[][] train(int rounds, int episodesPerRound) {
+        long startTime = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(numWorkers);
+        try {
+            for (int round = 0; round < rounds; round++) {
+                List<Callable<Void>> episodes = new ArrayList<>();
+                for (int i = 0; i < numWorkers; i++) {
+                    int worker = i;
+                    episodes.add(() -> {
+                        copyInto(workerTables[worker]);
+                        workers[worker].train(episodesPerRound);
+                        return null;
+                    });
+                }
+                runAll(executor, episodes); // Barrier: every worker finishes its episodes
+
+                List<Callable<Void>> merges = new ArrayList<>();
+                int chunk = (qTable.length + numWorkers - 1) / numWorkers;
+                for (int from = 0; from < qTable.length; from += chunk) {
+                    int start = from;
+                    int end = Math.min(qTable.length, from + chunk);
+                    merges.add(() -> {
+                        mergeRange(start, end);
+                        return null;
+                    });
+                }
+                runAll(executor, merges); // Barrier: the global table is merged
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long endTime = System.currentTimeMillis();
+        System.out.println("Parallel training with " + numWorkers + " workers took " + (endTime - startTime) + " milliseconds");
+        return qTable;
+    }
+
+    /**
+     * Copies the global Q-table into a worker's private Q-table.
+     *
+     * @param workerTable The worker's private Q-table.
+     */
+    private void copyInto(double[][] workerTable) {
+        for (int state = 0; state < qTable.length; state++) {
+            System.arraycopy(qTable[state], 0, workerTable[state], 0, 4);
+        }
+    }
+
+    /**
+     * Merges the workers' changes to the given range of states into the global Q-table.
+     * Only workers whose value of an entry differs from the round's snapshot count as having changed it.
+     * The workers are always visited in the same order, so the floating-point result is reproducible.
+     *
+     * @param start The first state of the range.
+     * @param end   The state after the last state of the range.
+     */
+    private void mergeRange(int start, int end) {
+        for (int state = start; state < end; state++) {
+            double[] global = qTable[state];
+            for (int action = 0; action < 4; action++) {
+                double delta = 0.0;
+                int contributors = 0;
+                for (double[][] workerTable : workerTables) {
+                    double change = workerTable[state][action] - global[action];
+                    if (change != 0.0) {
+                        delta += change;
+                        contributors++;
+                    }
+                }
+                if (contributors > 0) {
+                    global[action] += delta / (mergeMode == MergeMode.AVERAGE ? numWorkers : contributors);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the given tasks on the executor and waits until all of them are done.
+     *
+     * @param executor The executor.
+     * @param tasks    The tasks to be run.
+     */
+    private static void runAll(ExecutorService executor, List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parallel training was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parallel training failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * The `ParameterClient` class is a worker's blocking connection to a `ParameterServer`.
+ * It pulls Q-values into a local Q-table and pushes batches of Q-value deltas, using the server's binary protocol.
+ * The class is not thread-safe; each worker owns its own client.
+ */
+public class ParameterClient implements Closeable {
+    private final SocketChannel channel; // The connection to the server
+    private final ByteBuffer header = ByteBuffer.allocate(4); // The buffer receiving the length of each response
+    private ByteBuffer request = ByteBuffer.allocate(64 * 1024); // The buffer the requests are built in, grown when needed
+    private ByteBuffer response = ByteBuffer.allocate(64 * 1024); // The buffer the responses are read into, grown when needed
+
+    /**
+     * Connects to a parameter server.
+     *
+     * @param host The host of the server.
+     * @param port The port of the server.
+     * @throws IOException if the connection fails.
+     */
+    public ParameterClient(String host, int port) throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+    }
+
+    /**
+     * Pulls the Q-values of a range of states into the given Q-table.
+     *
+     * @param qTable The local Q-table, with one row per state.
+     * @param from   The first state of the range.
+     * @param to     The state after the last state of the range.
+     * @return The server's table version at the time of the pull.
+     * @throws IOException if the connection fails or the server rejects the request.
+     */
+    public long pull(double[][] qTable, int from, int to) throws IOException {
+        request.clear();
+        request.putInt(9).put(ParameterServer.PULL).putInt(from).putInt(to);
+        send();
+        ByteBuffer in = receive(ParameterServer.PULL);
+        long version = in.getLong();
+        if (in.getInt() != from || in.getInt() != to) {
+            throw new IOException("Server answered a different pull range");
+        }
+        for (int state = from; state < to; state++) {
+            for (int action = 0; action < 4; action++) {
+                qTable[state][action] = in.getFloat();
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Pushes a batch of Q-value deltas, which the server adds to its Q-table.
+     * The server scales the deltas down by one plus the number of pushes made since `seenVersion`.
+     *
+     * @param seenVersion The table version the deltas are based on: the version of the last pull plus the worker's own pushes since then.
+     * @param states      The state of each delta.
+     * @param actions     The action of each delta.
+     * @param deltas      The Q-value deltas.
+     * @param count       The number of deltas in the batch.
+     * @return The server's table version after the push.
+     * @throws IOException if the connection fails or the server rejects the request.
+     */
+    public long push(long seenVersion, int[] states, byte[] actions, float[] deltas, int count) throws IOException {
+        int length = ParameterServer.PUSH_HEADER_BYTES + count * ParameterServer.PUSH_ENTRY_BYTES;
+        if (request.capacity() < 4 + length) {
+            request = ByteBuffer.allocate(4 + length);
+        }
+        request.clear();
+        request.putInt(length).put(ParameterServer.PUSH).putLong(seenVersion).putInt(count);
+        for (int i = 0; i < count; i++) {
+            request.putInt(states[i]).put(actions[i]).putFloat(deltas[i]);
+        }
+        send();
+        return receive(ParameterServer.PUSH).getLong();
+    }
+
+    /**
+     * Writes the request buffer to the server.
+     *
+     * @throws IOException if the connection fails.
+     */
+    private void send() throws IOException {
+        request.flip();
+        while (request.hasRemaining()) {
+            channel.write(request);
+        }
+    }
+
+    /**
+     * Reads one response from the server.
+     *
+     * @param type The expected message type.
+     * @return The response buffer, positioned after the type byte.
+     * @throws IOException if the connection fails or the response has another type.
+     */
+    private ByteBuffer receive(byte type) throws IOException {
+        header.clear();
+        readFully(header);
+        int length = header.getInt(0);
+        if (response.capacity() < length) {
+            response = ByteBuffer.allocate(length);
+        }
+        response.clear().limit(length);
+        readFully(response);
+        response.flip();
+        if (response.get() != type) {
+            throw new IOException("Unexpected response type");
+        }
+        return response;
+    }
+
+    /**
+     * Reads from the server until the buffer is full.
+     *
+     * @param buffer The buffer to be filled.
+     * @throws IOException if the connection fails or is closed.
+     */
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Server closed the connection");
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
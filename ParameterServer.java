@@ -0,0 +1,309 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * The `ParameterServer` class owns a Q-table on behalf of `ParameterWorker` processes that train against it over the network.
+ * The table is split into shards by state-index range. Workers pull Q-values for a range of states and push batches of Q-value deltas.
+ * All connections are served by one selector thread over NIO socket channels, so the shards need no locking.
+ *
+ * Every message is framed as an `int` length followed by a one-byte type and its payload:
+ * a pull request carries the `int` first and last-plus-one states and is answered with the table version, the range and four `float` Q-values per state;
+ * a push request carries the `long` table version the worker last saw, an `int` count and that many (`int` state, `byte` action, `float` delta) entries, and is answered with the new table version.
+ * A push is scaled down by one plus the number of pushes the worker has not seen, so that several workers correcting the same stale Q-value do not overshoot it.
+ */
+public class ParameterServer implements Runnable {
+    static final byte PULL = 1; // The message type of a pull request and its response
+    static final byte PUSH = 2; // The message type of a push request and its response
+    static final int PUSH_HEADER_BYTES = 13; // The size of a push request before its entries, including the type byte
+    static final int PUSH_ENTRY_BYTES = 9; // The size of one pushed (state, action, delta) entry
+    private static final int MAX_FRAME_BYTES = 64 * 1024 * 1024; // The largest message accepted
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024; // The initial size of each connection's read buffer
+
+    private final int numStates; // The number of states of the Q-table
+    private final int shardSize; // The number of states per shard
+    private final float[][] shards; // The Q-values of each shard, four per state
+    private final long[] shardVersions; // The number of pushes that changed each shard
+    private final boolean[] touchedShards; // The shards changed by the push being applied
+    private long version = 0; // The number of pushes applied to the table
+    private final ServerSocketChannel serverChannel; // The listening channel
+    private final Selector selector; // The selector serving all connections
+    private volatile boolean running = true; // Whether the server keeps running
+
+    /**
+     * Constructs a new instance of the `ParameterServer` class with randomly initialized Q-values and binds it to the given port.
+     *
+     * @param port      The port to listen on, or 0 for any free port.
+     * @param numStates The number of states of the Q-table.
+     * @param numShards The number of shards the states are split into.
+     * @param seed      The seed of the Q-value initialization.
+     * @throws IOException if the port cannot be bound.
+     */
+    public ParameterServer(int port, int numStates, int numShards, long seed) throws IOException {
+        if (numStates <= 0 || numShards <= 0) {
+            throw new IllegalArgumentException("Number of states and shards must be positive");
+        }
+        this.numStates = numStates;
+        this.shardSize = (numStates + numShards - 1) / numShards;
+        int shardCount = (numStates + shardSize - 1) / shardSize;
+        this.shards = new float[shardCount][];
+        this.shardVersions = new long[shardCount];
+        this.touchedShards = new boolean[shardCount];
+        Random random = new Random(seed);
+        for (int i = 0; i < shardCount; i++) {
+            int states = Math.min(shardSize, numStates - i * shardSize);
+            shards[i] = new float[states * 4];
+            for (int j = 0; j < shards[i].length; j++) {
+                shards[i][j] = random.nextFloat(); // Initialize Q-values randomly
+            }
+        }
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return The local port.
+     * @throws IOException if the port cannot be read.
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Returns the number of states of the Q-table.
+     *
+     * @return The number of states.
+     */
+    public int getNumStates() {
+        return numStates;
+    }
+
+    /**
+     * Returns the number of pushes that changed at least one Q-value of the given shard. Only meaningful once the server has stopped.
+     *
+     * @param shard The shard index.
+     * @return The shard's version.
+     */
+    public long getShardVersion(int shard) {
+        return shardVersions[shard];
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else if (key.isWritable()) {
+                            flush(key);
+                            if (((Connection) key.attachment()).out == null) {
+                                read(key); // Handle requests that arrived while the response was being written
+                            }
+                        } else if (key.isReadable()) {
+                            read(key);
+                        }
+                    } catch (IOException e) {
+                        key.cancel(); // Drop the connection, the other workers are not affected
+                        key.channel().close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            try {
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+                selector.close();
+                serverChannel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Stops the server and closes all connections.
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Accepts a new worker connection.
+     *
+     * @throws IOException if the connection cannot be accepted.
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    /**
+     * Reads from a connection and answers every complete request in its buffer.
+     *
+     * @param key The connection's key.
+     * @throws IOException if the connection fails or sends a malformed request.
+     */
+    private void read(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        if (((SocketChannel) key.channel()).read(connection.in) < 0) {
+            throw new IOException("Worker closed the connection");
+        }
+        connection.in.flip();
+        while (connection.out == null && connection.in.remaining() >= 4) {
+            int length = connection.in.getInt(connection.in.position());
+            if (length <= 0 || length > MAX_FRAME_BYTES) {
+                throw new IOException("Malformed frame of " + length + " bytes");
+            }
+            if (connection.in.remaining() < 4 + length) {
+                if (connection.in.capacity() < 4 + length) {
+                    ByteBuffer larger = ByteBuffer.allocate(4 + length);
+                    larger.put(connection.in);
+                    larger.flip();
+                    connection.in = larger;
+                }
+                break;
+            }
+            connection.in.getInt();
+            connection.out = handle(connection.in, length);
+            flush(key);
+        }
+        connection.in.compact();
+    }
+
+    /**
+     * Writes as much of a connection's pending response as the socket accepts.
+     * Reading from the connection pauses until the whole response is written.
+     *
+     * @param key The connection's key.
+     * @throws IOException if the connection fails.
+     */
+    private void flush(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        if (connection.out == null) {
+            return;
+        }
+        ((SocketChannel) key.channel()).write(connection.out);
+        if (connection.out.hasRemaining()) {
+            key.interestOps(SelectionKey.OP_WRITE);
+        } else {
+            connection.out = null;
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Handles one request and builds its response.
+     *
+     * @param in     The buffer positioned at the request's type byte.
+     * @param length The length of the request, including the type byte.
+     * @return The framed response, ready to be written.
+     * @throws IOException if the request is malformed.
+     */
+    private ByteBuffer handle(ByteBuffer in, int length) throws IOException {
+        byte type = in.get();
+        if (type == PULL && length == 9) {
+            int from = in.getInt();
+            int to = in.getInt();
+            if (from < 0 || to > numStates || from > to) {
+                throw new IOException("Pull range [" + from + ", " + to + ") is out of bounds");
+            }
+            ByteBuffer out = ByteBuffer.allocate(4 + 1 + 8 + 8 + (to - from) * 16);
+            out.putInt(out.capacity() - 4).put(PULL).putLong(version).putInt(from).putInt(to);
+            for (int state = from; state < to; state++) {
+                float[] shard = shards[state / shardSize];
+                int offset = (state % shardSize) * 4;
+                for (int action = 0; action < 4; action++) {
+                    out.putFloat(shard[offset + action]);
+                }
+            }
+            out.flip();
+            return out;
+        }
+        if (type == PUSH && length >= PUSH_HEADER_BYTES) {
+            long seenVersion = in.getLong();
+            int count = in.getInt();
+            if (count < 0 || length != PUSH_HEADER_BYTES + count * PUSH_ENTRY_BYTES) {
+                throw new IOException("Malformed push of " + count + " entries");
+            }
+            int entries = in.position();
+            for (int i = 0; i < count; i++) { // Validate the whole push first, so a malformed push changes nothing
+                int state = in.getInt(entries + i * PUSH_ENTRY_BYTES);
+                byte action = in.get(entries + i * PUSH_ENTRY_BYTES + 4);
+                if (state < 0 || state >= numStates || action < 0 || action >= 4) {
+                    throw new IOException("Pushed entry (" + state + ", " + action + ") is out of bounds");
+                }
+            }
+            float scale = 1.0f / (1 + Math.max(0, version - seenVersion));
+            for (int i = 0; i < count; i++) {
+                int state = in.getInt();
+                byte action = in.get();
+                float delta = in.getFloat();
+                int shard = state / shardSize;
+                shards[shard][(state % shardSize) * 4 + action] += scale * delta;
+                touchedShards[shard] = true;
+            }
+            for (int shard = 0; shard < shards.length; shard++) {
+                if (touchedShards[shard]) {
+                    shardVersions[shard]++;
+                    touchedShards[shard] = false;
+                }
+            }
+            version++;
+            ByteBuffer out = ByteBuffer.allocate(4 + 1 + 8);
+            out.putInt(9).put(PUSH).putLong(version);
+            out.flip();
+            return out;
+        }
+        throw new IOException("Unknown request type " + type);
+    }
+
+    /**
+     * The `Connection` class holds the buffers of one worker connection.
+     */
+    private static final class Connection {
+        private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER_BYTES); // The bytes received and not yet handled
+        private ByteBuffer out; // The response still to be written, or `null`
+    }
+
+    /**
+     * Starts a parameter server in its own process.
+     *
+     * @param args The port, the number of states, the number of shards and optionally the seed.
+     * @throws IOException if the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: ParameterServer <port> <states> <shards> [seed]");
+            return;
+        }
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+        ParameterServer server = new ParameterServer(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]), seed);
+        System.out.println("Parameter server listening on port " + server.getPort());
+        server.run();
+    }
+}
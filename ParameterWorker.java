@@ -0,0 +1,143 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The `ParameterWorker` class trains a `LearningAgent` against a Q-table owned by a remote `ParameterServer`.
+ * The agent learns on a local copy of the table. After every episode the worker pushes the changes it made as one batch of deltas,
+ * and it pulls a fresh copy once more than `maxStaleness` pushes from other workers have reached the server since its last pull.
+ */
+public class ParameterWorker implements Runnable {
+    private final String host; // The host of the parameter server
+    private final int port; // The port of the parameter server
+    private final int episodes; // The number of episodes to be run
+    private final int maxStaleness; // The number of other workers' pushes tolerated before pulling again
+    private final double[][] qTable; // The local copy of the Q-table the agent learns on
+    private final double[][] snapshot; // The Q-values the server is known to hold for the local copy
+    private final LearningAgent agent; // The agent run by this worker
+    private final int[] deltaStates; // The state of each delta in the next push
+    private final byte[] deltaActions; // The action of each delta in the next push
+    private final float[] deltas; // The Q-value deltas of the next push
+
+    /**
+     * Constructs a new instance of the `ParameterWorker` class.
+     *
+     * @param map          The map of the maze; it must have as many states as the server's Q-table.
+     * @param position     The index of the agent.
+     * @param host         The host of the parameter server.
+     * @param port         The port of the parameter server.
+     * @param episodes     The number of episodes to be run.
+     * @param maxStaleness The number of other workers' pushes tolerated before pulling again, 0 to pull after every push by someone else.
+     * @param seed         The seed of the agent's random number generator.
+     */
+    public ParameterWorker(Map map, int position, String host, int port, int episodes, int maxStaleness, long seed) {
+        Position[][] maze = map.getConvertedMaze();
+        int numStates = maze.length * maze[0].length;
+        this.host = host;
+        this.port = port;
+        this.episodes = episodes;
+        this.maxStaleness = maxStaleness;
+        this.qTable = new double[numStates][4];
+        this.snapshot = new double[numStates][4];
+        this.agent = new LearningAgent(map, position, qTable, new VisitCounter(numStates), seed);
+        this.deltaStates = new int[numStates * 4];
+        this.deltaActions = new byte[numStates * 4];
+        this.deltas = new float[numStates * 4];
+    }
+
+    @Override
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        int pulls = 0;
+        try (ParameterClient client = new ParameterClient(host, port)) {
+            long pulledVersion = pull(client);
+            pulls++;
+            long ownPushes = 0;
+            for (int episode = 0; episode < episodes; episode++) {
+                agent.train(1);
+                int count = collectDeltas();
+                long serverVersion = Long.MAX_VALUE; // Nothing to push, so refresh the copy instead
+                if (count > 0) {
+                    serverVersion = client.push(pulledVersion + ownPushes, deltaStates, deltaActions, deltas, count);
+                    ownPushes++;
+                }
+                if (serverVersion - pulledVersion - ownPushes > maxStaleness) {
+                    pulledVersion = pull(client);
+                    pulls++;
+                    ownPushes = 0;
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        long endTime = System.currentTimeMillis();
+        System.out.println("Worker finished " + episodes + " episodes with " + pulls + " pulls in " + (endTime - startTime) + " milliseconds");
+    }
+
+    /**
+     * Replaces the local copy of the Q-table with the server's.
+     *
+     * @param client The connection to the server.
+     * @return The server's table version at the time of the pull.
+     * @throws IOException if the connection fails.
+     */
+    private long pull(ParameterClient client) throws IOException {
+        long version = client.pull(qTable, 0, qTable.length);
+        for (int state = 0; state < qTable.length; state++) {
+            System.arraycopy(qTable[state], 0, snapshot[state], 0, 4);
+        }
+        return version;
+    }
+
+    /**
+     * Collects the changes the agent made since the last push into the delta batch.
+     *
+     * @return The number of deltas in the batch.
+     */
+    private int collectDeltas() {
+        int count = 0;
+        for (int state = 0; state < qTable.length; state++) {
+            for (int action = 0; action < 4; action++) {
+                double delta = qTable[state][action] - snapshot[state][action];
+                if (delta != 0.0) {
+                    deltaStates[count] = state;
+                    deltaActions[count] = (byte) action;
+                    deltas[count] = (float) delta;
+                    count++;
+                    snapshot[state][action] = qTable[state][action];
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Starts a worker in its own process.
+     * The maze file holds one row of the maze per line, with the cells separated by spaces, as printed by `Map.printMap`.
+     *
+     * @param args The host and port of the server, the maze file, the agent index, the number of episodes and the maximum staleness.
+     * @throws IOException if the maze file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 6) {
+            System.out.println("Usage: ParameterWorker <host> <port> <maze file> <agent> <episodes> <max staleness>");
+            return;
+        }
+        List<int[]> rows = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(args[2]))) {
+            if (!line.isBlank()) {
+                String[] cells = line.trim().split("\\s+");
+                int[] row = new int[cells.length];
+                for (int i = 0; i < cells.length; i++) {
+                    row[i] = Integer.parseInt(cells[i]);
+                }
+                rows.add(row);
+            }
+        }
+        Map map = new Map(rows.toArray(new int[0][]));
+        new ParameterWorker(map, Integer.parseInt(args[3]), args[0], Integer.parseInt(args[1]),
+                Integer.parseInt(args[4]), Integer.parseInt(args[5]), System.nanoTime()).run();
+    }
+}
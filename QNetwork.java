@@ -0,0 +1,307 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The `QNetwork` class is a small multi-layer perceptron that approximates the Q-values of the four actions from a feature vector.
+ * It has one ReLU hidden layer and a linear output layer, with all weights stored in flat `float[]` buffers.
+ * The forward and backward passes are hand-written on top of `MatrixOps` and work on buffers allocated once at construction, so they do not allocate.
+ * Mini-batch gradients are computed in parallel: the batch is split into shards, each thread computes the gradients of its shard, and the shard gradients are summed in a fixed order.
+ * A shard has at least `MIN_SHARD_ROWS` samples, so small batches are computed on the calling thread instead of paying for a hand-off to the pool.
+ * The class is not thread-safe; a network is used by one learner at a time.
+ */
+public class QNetwork {
+    public static final int OUTPUT_SIZE = 4; // The number of outputs, one per action
+    private static final int MIN_SHARD_ROWS = 64; // The fewest samples worth handing to a thread of their own
+
+    private final int inputSize; // The number of input features
+    private final int hiddenSize; // The number of hidden units
+    private final int maxBatchSize; // The largest batch `trainBatch` accepts
+    private final float learningRate; // The step size of the gradient descent
+    private final float[] hiddenWeights; // The input-to-hidden weights, inputSize x hiddenSize
+    private final float[] hiddenBiases; // The hidden biases
+    private final float[] outputWeights; // The hidden-to-output weights, hiddenSize x OUTPUT_SIZE
+    private final float[] outputBiases; // The output biases
+    private final float[] hidden; // The hidden activations of a single prediction
+    private final Shard[] shards; // The gradient workspaces, one per thread
+    private final List<Callable<Void>> shardTasks; // The shards as tasks for the executor
+    private final ExecutorService executor; // The threads computing shard gradients, or `null` when single-threaded
+    private float[] batchInputs; // The inputs of the batch being trained
+    private int[] batchActions; // The actions of the batch being trained
+    private float[] batchTargets; // The target Q-values of the batch being trained
+    private int batchSize; // The size of the batch being trained
+    private int activeShards; // The number of shards the batch being trained is split into
+
+    /**
+     * Constructs a new instance of the `QNetwork` class with randomly initialized weights.
+     *
+     * @param inputSize    The number of input features.
+     * @param hiddenSize   The number of hidden units.
+     * @param maxBatchSize The largest batch `trainBatch` accepts.
+     * @param numThreads   The number of threads computing the batch gradients.
+     * @param learningRate The step size of the gradient descent.
+     * @param seed         The seed of the weight initialization.
+     */
+    public QNetwork(int inputSize, int hiddenSize, int maxBatchSize, int numThreads, float learningRate, long seed) {
+        if (inputSize <= 0 || hiddenSize <= 0 || maxBatchSize <= 0 || numThreads <= 0) {
+            throw new IllegalArgumentException("Network sizes and thread count must be positive");
+        }
+        this.inputSize = inputSize;
+        this.hiddenSize = hiddenSize;
+        this.maxBatchSize = maxBatchSize;
+        this.learningRate = learningRate;
+        this.hiddenWeights = new float[inputSize * hiddenSize];
+        this.hiddenBiases = new float[hiddenSize];
+        this.outputWeights = new float[hiddenSize * OUTPUT_SIZE];
+        this.outputBiases = new float[OUTPUT_SIZE];
+        this.hidden = new float[hiddenSize];
+
+        // He initialization for the ReLU layer, smaller weights for the linear output layer
+        Random random = new Random(seed);
+        float hiddenScale = (float) Math.sqrt(2.0 / inputSize);
+        for (int i = 0; i < hiddenWeights.length; i++) {
+            hiddenWeights[i] = (float) random.nextGaussian() * hiddenScale;
+        }
+        float outputScale = (float) Math.sqrt(1.0 / hiddenSize);
+        for (int i = 0; i < outputWeights.length; i++) {
+            outputWeights[i] = (float) random.nextGaussian() * outputScale;
+        }
+
+        int shardRows = Math.min(maxBatchSize, Math.max(MIN_SHARD_ROWS, (maxBatchSize + numThreads - 1) / numThreads));
+        this.shards = new Shard[numThreads];
+        this.shardTasks = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            shards[i] = new Shard(shardRows);
+            shardTasks.add(shards[i]);
+        }
+        this.executor = numThreads > 1 ? Executors.newFixedThreadPool(numThreads, task -> {
+            Thread thread = new Thread(task, "QNetwork-gradients");
+            thread.setDaemon(true); // An unclosed network must not keep the JVM alive
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Returns the number of input features.
+     *
+     * @return The input size.
+     */
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    /**
+     * Returns the number of hidden units.
+     *
+     * @return The hidden size.
+     */
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    /**
+     * Copies the weights of another network of the same shape into this one, for example to refresh a target network.
+     *
+     * @param source The network whose weights are copied.
+     * @throws IllegalArgumentException if the networks differ in shape.
+     */
+    public void copyWeightsFrom(QNetwork source) {
+        if (source.inputSize != inputSize || source.hiddenSize != hiddenSize) {
+            throw new IllegalArgumentException("Networks must have the same shape");
+        }
+        System.arraycopy(source.hiddenWeights, 0, hiddenWeights, 0, hiddenWeights.length);
+        System.arraycopy(source.hiddenBiases, 0, hiddenBiases, 0, hiddenBiases.length);
+        System.arraycopy(source.outputWeights, 0, outputWeights, 0, outputWeights.length);
+        System.arraycopy(source.outputBiases, 0, outputBiases, 0, outputBiases.length);
+    }
+
+    /**
+     * Computes the Q-values of a single feature vector.
+     *
+     * @param input   The buffer holding the feature vector.
+     * @param offset  The index of the first feature in the buffer.
+     * @param qValues The buffer receiving the `OUTPUT_SIZE` Q-values.
+     */
+    public void predict(float[] input, int offset, float[] qValues) {
+        MatrixOps.multiply(input, offset, hiddenWeights, hidden, 0, 1, inputSize, hiddenSize);
+        for (int j = 0; j < hiddenSize; j++) {
+            hidden[j] = Math.max(0.0f, hidden[j] + hiddenBiases[j]);
+        }
+        MatrixOps.multiply(hidden, 0, outputWeights, qValues, 0, 1, hiddenSize, OUTPUT_SIZE);
+        for (int a = 0; a < OUTPUT_SIZE; a++) {
+            qValues[a] += outputBiases[a];
+        }
+    }
+
+    /**
+     * Runs one gradient descent step on a mini-batch, moving the Q-value of each sample's action towards its target.
+     * The loss is half the mean squared error over the batch.
+     *
+     * @param inputs    The feature vectors of the batch, one row of `getInputSize()` features per sample.
+     * @param actions   The action of each sample.
+     * @param targets   The target Q-value of each sample.
+     * @param batchSize The number of samples in the batch.
+     * @return The loss of the batch before the step.
+     */
+    public float trainBatch(float[] inputs, int[] actions, float[] targets, int batchSize) {
+        if (batchSize <= 0 || batchSize > maxBatchSize) {
+            throw new IllegalArgumentException("Batch size must be in [1, " + maxBatchSize + "]");
+        }
+        this.batchInputs = inputs;
+        this.batchActions = actions;
+        this.batchTargets = targets;
+        this.batchSize = batchSize;
+        activeShards = Math.min(shards.length, (batchSize + MIN_SHARD_ROWS - 1) / MIN_SHARD_ROWS);
+        int shardRows = (batchSize + activeShards - 1) / activeShards;
+        for (int i = 0; i < activeShards; i++) {
+            shards[i].start = Math.min(batchSize, i * shardRows);
+            shards[i].end = Math.min(batchSize, (i + 1) * shardRows);
+        }
+        if (activeShards == 1) {
+            shards[0].call();
+        } else {
+            try {
+                for (Future<Void> future : executor.invokeAll(shardTasks.subList(0, activeShards))) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Gradient computation was interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Gradient computation failed", e.getCause());
+            }
+        }
+
+        // Sum the shard gradients in a fixed order and take the step
+        float loss = 0.0f;
+        for (int i = 0; i < activeShards; i++) {
+            loss += shards[i].loss;
+        }
+        applyGradients(hiddenWeights, 0);
+        applyGradients(hiddenBiases, 1);
+        applyGradients(outputWeights, 2);
+        applyGradients(outputBiases, 3);
+        return loss / batchSize;
+    }
+
+    /**
+     * Sums the shard gradients of one parameter buffer and applies them.
+     *
+     * @param parameters The parameter buffer.
+     * @param index      The index of the matching gradient buffer in each shard.
+     */
+    private void applyGradients(float[] parameters, int index) {
+        for (int i = 0; i < parameters.length; i++) {
+            float gradient = 0.0f;
+            for (int shard = 0; shard < activeShards; shard++) {
+                gradient += shards[shard].gradients[index][i];
+            }
+            parameters[i] -= learningRate * gradient;
+        }
+    }
+
+    /**
+     * Stops the gradient threads. The network can still be used for predictions afterwards.
+     * The threads are daemon threads, so a network that is never closed does not keep the JVM from exiting.
+     */
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * The `Shard` class holds the workspace of one thread and computes the gradients of a contiguous range of the batch.
+     */
+    private final class Shard implements Callable<Void> {
+        private final float[] hiddenActivations; // The hidden activations, rows x hiddenSize
+        private final float[] outputs; // The predicted Q-values, rows x OUTPUT_SIZE
+        private final float[] outputErrors; // The loss gradient at the outputs, rows x OUTPUT_SIZE
+        private final float[] hiddenErrors; // The loss gradient at the hidden layer, rows x hiddenSize
+        private final float[][] gradients; // The gradients of the hidden weights, hidden biases, output weights and output biases
+        private int start; // The first sample of the shard
+        private int end; // The sample after the last sample of the shard
+        private float loss; // The summed squared error of the shard, halved
+
+        private Shard(int maxRows) {
+            this.hiddenActivations = new float[maxRows * hiddenSize];
+            this.outputs = new float[maxRows * OUTPUT_SIZE];
+            this.outputErrors = new float[maxRows * OUTPUT_SIZE];
+            this.hiddenErrors = new float[maxRows * hiddenSize];
+            this.gradients = new float[][]{
+                    new float[inputSize * hiddenSize],
+                    new float[hiddenSize],
+                    new float[hiddenSize * OUTPUT_SIZE],
+                    new float[OUTPUT_SIZE]
+            };
+        }
+
+        @Override
+        public Void call() {
+            int rows = end - start;
+            loss = 0.0f;
+            if (rows <= 0) {
+                for (float[] gradient : gradients) {
+                    Arrays.fill(gradient, 0.0f);
+                }
+                return null;
+            }
+
+            // Forward pass
+            MatrixOps.multiply(batchInputs, start * inputSize, hiddenWeights, hiddenActivations, 0, rows, inputSize, hiddenSize);
+            for (int r = 0; r < rows; r++) {
+                int row = r * hiddenSize;
+                for (int j = 0; j < hiddenSize; j++) {
+                    hiddenActivations[row + j] = Math.max(0.0f, hiddenActivations[row + j] + hiddenBiases[j]);
+                }
+            }
+            MatrixOps.multiply(hiddenActivations, 0, outputWeights, outputs, 0, rows, hiddenSize, OUTPUT_SIZE);
+
+            // Only the output of the sample's action has an error
+            float scale = 1.0f / batchSize;
+            Arrays.fill(outputErrors, 0, rows * OUTPUT_SIZE, 0.0f);
+            for (int r = 0; r < rows; r++) {
+                int action = batchActions[start + r];
+                float error = outputs[r * OUTPUT_SIZE + action] + outputBiases[action] - batchTargets[start + r];
+                loss += 0.5f * error * error;
+                outputErrors[r * OUTPUT_SIZE + action] = error * scale;
+            }
+
+            // Backward pass
+            MatrixOps.multiplyTransposeA(hiddenActivations, 0, outputErrors, 0, gradients[2], rows, hiddenSize, OUTPUT_SIZE);
+            sumRows(outputErrors, rows, OUTPUT_SIZE, gradients[3]);
+            MatrixOps.multiplyTransposeB(outputErrors, 0, outputWeights, hiddenErrors, 0, rows, OUTPUT_SIZE, hiddenSize);
+            for (int i = 0; i < rows * hiddenSize; i++) {
+                if (hiddenActivations[i] == 0.0f) {
+                    hiddenErrors[i] = 0.0f; // ReLU passes no gradient where it is inactive
+                }
+            }
+            MatrixOps.multiplyTransposeA(batchInputs, start * inputSize, hiddenErrors, 0, gradients[0], rows, inputSize, hiddenSize);
+            sumRows(hiddenErrors, rows, hiddenSize, gradients[1]);
+            return null;
+        }
+
+        /**
+         * Sums the rows of a matrix into a vector.
+         *
+         * @param matrix  The matrix, rows x columns.
+         * @param rows    The number of rows.
+         * @param columns The number of columns.
+         * @param sums    The buffer receiving the column sums.
+         */
+        private void sumRows(float[] matrix, int rows, int columns, float[] sums) {
+            Arrays.fill(sums, 0.0f);
+            for (int r = 0; r < rows; r++) {
+                for (int j = 0; j < columns; j++) {
+                    sums[j] += matrix[r * columns + j];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The `ReplayBuffer` class stores recent transitions so that a `ReplayLearner` can use each of them for many Q-value updates.
+ * Transitions are kept in a fixed-capacity ring of parallel primitive arrays, and the oldest transition is overwritten when the ring is full.
+ * Any number of agent threads can append without locking: each append claims a ticket from an atomic counter, claims its slot, writes it and then publishes the ticket.
+ * A slot is only claimed once the previous lap's ticket has been published in it, so two appends a lap apart never write the same slot at the same time.
+ * Readers only accept a slot whose published ticket is unchanged before and after they copied it, so a slot being overwritten is never read half-written.
+ */
+public class ReplayBuffer {
+    private static final long EMPTY = -1; // The published value of a slot that was never written
+    private static final long WRITING = -2; // The published value of a slot while an append writes it
+
+    private final int capacity; // The maximum number of transitions kept
+    private final int[] states; // The state index of each transition
+    private final byte[] actions; // The action index of each transition
+    private final float[] rewards; // The reward of each transition
+    private final int[] nextStates; // The next state index of each transition
+    private final AtomicLong nextTicket = new AtomicLong(); // The ticket of the next append
+    private final AtomicLongArray published; // The ticket published in each slot, or `EMPTY` or `WRITING`
+
+    /**
+     * Constructs a new instance of the `ReplayBuffer` class.
+     *
+     * @param capacity The maximum number of transitions kept.
+     */
+    public ReplayBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.states = new int[capacity];
+        this.actions = new byte[capacity];
+        this.rewards = new float[capacity];
+        this.nextStates = new int[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, EMPTY);
+        }
+    }
+
+    /**
+     * Appends a transition, overwriting the oldest one if the buffer is full. Safe to call from several threads.
+     * If the append one lap earlier has not finished writing the same slot yet, this append waits for it.
+     *
+     * @param state     The state index.
+     * @param action    The action index.
+     * @param reward    The reward received.
+     * @param nextState The next state index.
+     */
+    public void append(int state, int action, float reward, int nextState) {
+        long ticket = nextTicket.getAndIncrement();
+        int slot = (int) (ticket % capacity);
+        long previous = ticket < capacity ? EMPTY : ticket - capacity;
+        while (!published.compareAndSet(slot, previous, WRITING)) {
+            Thread.onSpinWait(); // The append one lap earlier is still writing this slot
+        }
+        VarHandle.releaseFence(); // Keep the writes below from moving before the slot is marked
+        states[slot] = state;
+        actions[slot] = (byte) action;
+        rewards[slot] = reward;
+        nextStates[slot] = nextState;
+        published.set(slot, ticket);
+    }
+
+    /**
+     * Returns the capacity of the buffer.
+     *
+     * @return The maximum number of transitions kept.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of appends claimed so far, including appends that are still being written.
+     *
+     * @return The number of appends.
+     */
+    public long getAppendCount() {
+        return nextTicket.get();
+    }
+
+    /**
+     * Returns the ticket published in the given slot.
+     *
+     * @param slot The slot index.
+     * @return The ticket of the transition in the slot, or a negative value if the slot is empty or being written.
+     */
+    public long getPublishedTicket(int slot) {
+        return published.get(slot);
+    }
+
+    /**
+     * Copies the transition in the given slot into the batch arrays.
+     *
+     * @param slot       The slot index.
+     * @param index      The index in the batch arrays to copy to.
+     * @param states     The batch state indices.
+     * @param actions    The batch action indices.
+     * @param rewards    The batch rewards.
+     * @param nextStates The batch next state indices.
+     * @return `true` if a complete transition was copied, `false` if the slot is empty or was overwritten while copying.
+     */
+    public boolean copyTo(int slot, int index, int[] states, int[] actions, float[] rewards, int[] nextStates) {
+        long ticket = published.get(slot);
+        if (ticket < 0) {
+            return false;
+        }
+        states[index] = this.states[slot];
+        actions[index] = this.actions[slot];
+        rewards[index] = this.rewards[slot];
+        nextStates[index] = this.nextStates[slot];
+        VarHandle.acquireFence(); // Keep the reads above from moving after the second check
+        return published.get(slot) == ticket;
+    }
+}
@@ -0,0 +1,188 @@
+import java.util.Random;
+
+/**
+ * The `ReplayLearner` class replays transitions from a `ReplayBuffer` on its own thread, so that acting and learning run on different cores.
+ * It repeatedly samples a mini-batch, either uniformly or in proportion to each transition's last temporal-difference error, and applies the backups through a `LearningAgent`.
+ * Prioritized sampling uses a `SumTree`; new transitions enter it with the highest priority seen so far, so each is replayed at least once soon after it is appended.
+ * The amount of replay is tied to the number of appended transitions by a replay ratio, so it does not depend on how the threads are scheduled:
+ * the learner waits while it is ahead of its budget, and when it is stopped it first catches up on the batches it still owes.
+ */
+public class ReplayLearner implements Runnable {
+    private static final double PRIORITY_EXPONENT = 0.6; // How strongly the sampling favours large errors, 0 for uniform
+    private static final double PRIORITY_EPSILON = 0.01; // The priority added to every error, so no transition is starved
+
+    private final ReplayBuffer buffer; // The buffer the transitions are sampled from
+    private final LearningAgent agent; // The agent whose Q-table is updated
+    private final int batchSize; // The number of transitions per mini-batch
+    private final double replayRatio; // The number of replayed transitions per appended transition
+    private final SumTree priorities; // The sampling priority of each slot, or `null` for uniform sampling
+    private final Random random; // A random number generator
+    private final int[] slots; // The slot of each sampled transition
+    private final int[] states; // The state index of each sampled transition
+    private final int[] actions; // The action index of each sampled transition
+    private final float[] rewards; // The reward of each sampled transition
+    private final int[] nextStates; // The next state index of each sampled transition
+    private final double[] tdErrors; // The temporal-difference error of each sampled transition
+    private long syncedTickets = 0; // The number of appended transitions that have been given a priority
+    private double maxPriority = 1.0; // The highest priority seen so far
+    private volatile long batchesApplied = 0; // The number of mini-batches applied
+    private volatile boolean running = true; // Whether the learner keeps running
+
+    /**
+     * Constructs a new instance of the `ReplayLearner` class.
+     *
+     * @param buffer      The buffer the transitions are sampled from.
+     * @param agent       The agent whose Q-table is updated.
+     * @param batchSize   The number of transitions per mini-batch.
+     * @param replayRatio The number of replayed transitions per appended transition.
+     * @param prioritized `true` for prioritized sampling, `false` for uniform sampling.
+     * @param seed        The seed of the sampling.
+     */
+    public ReplayLearner(ReplayBuffer buffer, LearningAgent agent, int batchSize, double replayRatio, boolean prioritized, long seed) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        if (replayRatio <= 0.0) {
+            throw new IllegalArgumentException("Replay ratio must be positive");
+        }
+        this.buffer = buffer;
+        this.agent = agent;
+        this.batchSize = batchSize;
+        this.replayRatio = replayRatio;
+        this.priorities = prioritized ? new SumTree(buffer.getCapacity()) : null;
+        this.random = new Random(seed);
+        this.slots = new int[batchSize];
+        this.states = new int[batchSize];
+        this.actions = new int[batchSize];
+        this.rewards = new float[batchSize];
+        this.nextStates = new int[batchSize];
+        this.tdErrors = new double[batchSize];
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            if (batchesApplied >= batchBudget() || !learnBatch()) {
+                try {
+                    Thread.sleep(1); // Wait for the agents to append transitions
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        while (batchesApplied < batchBudget() && learnBatch()) {
+            // Catch up on the batches owed for the transitions appended before the stop
+        }
+    }
+
+    /**
+     * Returns the number of mini-batches the learner may have applied for the transitions appended so far.
+     *
+     * @return The replay budget in mini-batches.
+     */
+    private long batchBudget() {
+        return (long) (buffer.getAppendCount() * replayRatio / batchSize);
+    }
+
+    /**
+     * Asks the learner to stop once it has replayed its budget for the transitions appended so far.
+     * The agents should have stopped appending by then, so the total amount of replay is fixed.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Returns the number of mini-batches applied so far.
+     *
+     * @return The number of mini-batches.
+     */
+    public long getBatchesApplied() {
+        return batchesApplied;
+    }
+
+    /**
+     * Samples one mini-batch and applies its backups.
+     *
+     * @return `true` if a mini-batch was applied, `false` if the buffer holds no transitions yet.
+     */
+    boolean learnBatch() {
+        int count = priorities == null ? sampleUniform() : samplePrioritized();
+        if (count == 0) {
+            return false;
+        }
+        agent.applyReplayBatch(states, actions, rewards, nextStates, count, tdErrors);
+        if (priorities != null) {
+            for (int i = 0; i < count; i++) {
+                double priority = Math.pow(Math.abs(tdErrors[i]) + PRIORITY_EPSILON, PRIORITY_EXPONENT);
+                priorities.update(slots[i], priority);
+                maxPriority = Math.max(maxPriority, priority);
+            }
+        }
+        batchesApplied++;
+        return true;
+    }
+
+    /**
+     * Samples a mini-batch uniformly from the filled slots.
+     *
+     * @return The number of transitions sampled.
+     */
+    private int sampleUniform() {
+        int filled = (int) Math.min(buffer.getAppendCount(), buffer.getCapacity());
+        if (filled == 0) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = 0; i < batchSize; i++) {
+            int slot = random.nextInt(filled);
+            if (buffer.copyTo(slot, count, states, actions, rewards, nextStates)) {
+                slots[count++] = slot;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Samples a mini-batch in proportion to the slots' priorities.
+     *
+     * @return The number of transitions sampled.
+     */
+    private int samplePrioritized() {
+        syncPriorities();
+        double total = priorities.total();
+        if (total <= 0.0) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = 0; i < batchSize; i++) {
+            int slot = priorities.find(random.nextDouble() * total);
+            if (buffer.copyTo(slot, count, states, actions, rewards, nextStates)) {
+                slots[count++] = slot;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gives every newly published transition the highest priority seen so far.
+     * Transitions that are still being written are picked up on a later call.
+     */
+    private void syncPriorities() {
+        long appended = buffer.getAppendCount();
+        int capacity = buffer.getCapacity();
+        long ticket = Math.max(syncedTickets, appended - capacity); // Older tickets have been overwritten already
+        for (; ticket < appended; ticket++) {
+            int slot = (int) (ticket % capacity);
+            long published = buffer.getPublishedTicket(slot);
+            if (published < ticket) {
+                break; // Still being written
+            }
+            if (published == ticket) {
+                priorities.update(slot, maxPriority);
+            }
+        }
+        syncedTickets = ticket;
+    }
+}
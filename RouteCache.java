@@ -0,0 +1,150 @@
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * The `RouteCache` class stores the routes produced by a learned Q-table so that repeated queries from the same start cell do not have to walk the maze again.
+ * Entries are keyed by the maze hash, the Q-table version and the start state, and the least recently used entry is evicted once the cache is full.
+ * All methods are thread-safe, so many agents can read from the same cache concurrently.
+ */
+public class RouteCache {
+    private final int capacity; // The maximum number of routes kept in the cache
+    private final LinkedHashMap<Key, List<Position>> routes; // The cached routes, in access order
+    private final Object cacheLock = new Object(); // A lock object to ensure thread-safe access to the cache
+    private long hits = 0; // The number of queries answered from the cache
+    private long misses = 0; // The number of queries that had to compute the route
+
+    /**
+     * Constructs a new instance of the `RouteCache` class.
+     *
+     * @param capacity The maximum number of routes kept in the cache.
+     */
+    public RouteCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.routes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(java.util.Map.Entry<Key, List<Position>> eldest) {
+                return size() > RouteCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached route for the given key, or `null` if the route is not cached.
+     * The lookup is counted as a hit or a miss.
+     *
+     * @param mazeHash   The hash of the maze the route was computed on.
+     * @param version    The version of the Q-table the route was computed from.
+     * @param startState The state index of the start cell.
+     * @return The cached route, or `null` if the route is not cached.
+     */
+    public List<Position> get(int mazeHash, long version, int startState) {
+        Key key = new Key(mazeHash, version, startState);
+        synchronized (cacheLock) {
+            List<Position> route = routes.get(key);
+            if (route == null) {
+                misses++;
+            } else {
+                hits++;
+            }
+            return route;
+        }
+    }
+
+    /**
+     * Stores a route in the cache, evicting the least recently used route if the cache is full.
+     *
+     * @param mazeHash   The hash of the maze the route was computed on.
+     * @param version    The version of the Q-table the route was computed from.
+     * @param startState The state index of the start cell.
+     * @param route      The route to be stored.
+     * @return The stored, unmodifiable route.
+     */
+    public List<Position> put(int mazeHash, long version, int startState, List<Position> route) {
+        List<Position> stored = Collections.unmodifiableList(route);
+        synchronized (cacheLock) {
+            routes.put(new Key(mazeHash, version, startState), stored);
+        }
+        return stored;
+    }
+
+    /**
+     * Removes every route from the cache. The hit and miss counters are kept.
+     */
+    public void invalidate() {
+        synchronized (cacheLock) {
+            routes.clear();
+        }
+    }
+
+    /**
+     * Returns the number of routes currently stored in the cache.
+     *
+     * @return The number of cached routes.
+     */
+    public int size() {
+        synchronized (cacheLock) {
+            return routes.size();
+        }
+    }
+
+    /**
+     * Returns the number of queries answered from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        synchronized (cacheLock) {
+            return hits;
+        }
+    }
+
+    /**
+     * Returns the number of queries that were not found in the cache.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        synchronized (cacheLock) {
+            return misses;
+        }
+    }
+
+    /**
+     * The key of a cached route: the maze, the Q-table version and the start state.
+     */
+    private static final class Key {
+        private final int mazeHash; // The hash of the maze
+        private final long version; // The version of the Q-table
+        private final int startState; // The state index of the start cell
+
+        private Key(int mazeHash, long version, int startState) {
+            this.mazeHash = mazeHash;
+            this.version = version;
+            this.startState = startState;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return mazeHash == other.mazeHash && version == other.version && startState == other.startState;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mazeHash;
+            result = 31 * result + Long.hashCode(version);
+            result = 31 * result + startState;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * The `Schedule` interface describes a value that changes over the episodes of the training phase, such as the exploration rate.
+ * Implementations must not allocate, because they are queried by the learning agents while training.
+ */
+public interface Schedule {
+    /**
+     * Returns the value of the schedule for the given episode.
+     *
+     * @param episode The episode, starting at 0.
+     * @return The value for the episode.
+     */
+    double valueAt(int episode);
+}
@@ -0,0 +1,78 @@
+/**
+ * The `SumTree` class stores a priority per slot in a binary tree of partial sums, so that slots can be sampled in proportion to their priority.
+ * Updating a priority and sampling a slot both cost O(log capacity), and nothing is allocated after construction.
+ * The class is not thread-safe; it is owned by a single `ReplayLearner`.
+ */
+public class SumTree {
+    private final int leaves; // The number of leaves, the capacity rounded up to a power of two
+    private final double[] tree; // The partial sums; node i has children 2i and 2i + 1 and the leaves start at `leaves`
+
+    /**
+     * Constructs a new instance of the `SumTree` class with all priorities set to zero.
+     *
+     * @param capacity The number of slots.
+     */
+    public SumTree(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.leaves = size;
+        this.tree = new double[2 * size];
+    }
+
+    /**
+     * Sets the priority of the given slot.
+     *
+     * @param slot     The slot index.
+     * @param priority The new, non-negative priority.
+     */
+    public void update(int slot, double priority) {
+        int node = leaves + slot;
+        double change = priority - tree[node];
+        while (node >= 1) {
+            tree[node] += change;
+            node >>= 1;
+        }
+    }
+
+    /**
+     * Returns the priority of the given slot.
+     *
+     * @param slot The slot index.
+     * @return The priority of the slot.
+     */
+    public double get(int slot) {
+        return tree[leaves + slot];
+    }
+
+    /**
+     * Returns the sum of all priorities.
+     *
+     * @return The total priority.
+     */
+    public double total() {
+        return tree[1];
+    }
+
+    /**
+     * Finds the slot whose range of cumulative priority contains the given value.
+     * Drawing `value` uniformly from [0, total()) samples each slot in proportion to its priority.
+     *
+     * @param value The cumulative priority to look up.
+     * @return The slot index.
+     */
+    public int find(double value) {
+        int node = 1;
+        while (node < leaves) {
+            int left = 2 * node;
+            if (value < tree[left] || tree[left + 1] <= 0.0) {
+                node = left;
+            } else {
+                value -= tree[left];
+                node = left + 1;
+            }
+        }
+        return node - leaves;
+    }
+}
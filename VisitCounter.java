@@ -0,0 +1,52 @@
+/**
+ * The `VisitCounter` class counts how often each state and each state-action pair has been visited.
+ * The counts are stored in flat arrays indexed like the Q-table, so counting does not allocate.
+ * The class is not thread-safe; callers share it under the same lock as the Q-table.
+ */
+public class VisitCounter {
+    private final int[] stateActionCounts; // The visit counts per state-action pair, at `state * 4 + action`
+    private final int[] stateCounts; // The visit counts per state
+
+    /**
+     * Constructs a new instance of the `VisitCounter` class.
+     *
+     * @param numStates The number of states.
+     */
+    public VisitCounter(int numStates) {
+        this.stateActionCounts = new int[numStates * 4];
+        this.stateCounts = new int[numStates];
+    }
+
+    /**
+     * Records a visit to the given state-action pair.
+     *
+     * @param state  The state index.
+     * @param action The action index.
+     * @return The number of visits to the state-action pair, including this one.
+     */
+    public int increment(int state, int action) {
+        stateCounts[state]++;
+        return ++stateActionCounts[state * 4 + action];
+    }
+
+    /**
+     * Returns the number of visits to the given state-action pair.
+     *
+     * @param state  The state index.
+     * @param action The action index.
+     * @return The number of visits.
+     */
+    public int getCount(int state, int action) {
+        return stateActionCounts[state * 4 + action];
+    }
+
+    /**
+     * Returns the number of visits to the given state, over all actions.
+     *
+     * @param state The state index.
+     * @return The number of visits.
+     */
+    public int getStateCount(int state) {
+        return stateCounts[state];
+    }
+}